@@ -2,21 +2,23 @@ package com.beagleflipper.controller;
 
 import com.beagleflipper.model.*;
 import com.beagleflipper.ui.graph.model.Data;
+import com.beagleflipper.util.MsgPackEncoder;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import com.google.inject.Singleton;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.callback.ClientThread;
 import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSource;
 import javax.annotation.Nonnull; // FIXED: Import the correct annotation
 
 import javax.inject.Inject;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.net.URLEncoder;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
@@ -44,6 +46,7 @@ public class ApiRequestHandler {
     private final LoginResponseManager loginResponseManager;
     private final SuggestionPreferencesManager preferencesManager;
     private final ClientThread clientThread;
+    private final BeagleFlipperConfig config;
 
     private Instant lastDebugMessageSent = Instant.now();
 
@@ -249,24 +252,46 @@ public class ApiRequestHandler {
         }
     }
 
-    public void getSuggestionAsync(JsonObject status,
+    public boolean isMsgPackRequestsEnabled() {
+        return config.msgPackRequests();
+    }
+
+    public static RequestBody msgPackBody(Buffer body) {
+        return RequestBody.create(MediaType.get(MsgPackEncoder.CONTENT_TYPE), body.readByteString());
+    }
+
+    public RetryableCall getSuggestionAsync(JsonObject status,
                                    Consumer<Suggestion> suggestionConsumer,
                                    Consumer<Data> graphDataConsumer,
                                    Consumer<HttpResponseException> onFailure) {
         log.debug("sending status {}", status.toString());
+        // FIXED: Swapped arguments for create() method
+        RequestBody body = RequestBody.create(MediaType.get("application/json; charset=utf-8"), status.toString());
+        return getSuggestionAsync(body, suggestionConsumer, graphDataConsumer, onFailure);
+    }
+
+    public RetryableCall getSuggestionAsync(RequestBody body,
+                                   Consumer<Suggestion> suggestionConsumer,
+                                   Consumer<Data> graphDataConsumer,
+                                   Consumer<HttpResponseException> onFailure) {
         Request request = new Request.Builder()
                 .url(API_BASE_URL + "/suggestion")
                 .addHeader("Authorization", "Bearer " + loginResponseManager.getJwtToken())
                 .addHeader("Accept", "application/x-msgpack")
-                // FIXED: Swapped arguments for create() method
-                .post(RequestBody.create(MediaType.get("application/json; charset=utf-8"), status.toString()))
+                .post(body)
                 .build();
 
-        client.newCall(request).enqueue(new Callback() {
+        Call suggestionCall = client.newCall(request);
+        RetryableCall handle = new RetryableCall(suggestionCall);
+        suggestionCall.enqueue(new Callback() {
             @Override
             // FIXED: Added @Nonnull annotations
             public void onFailure(@Nonnull Call call, @Nonnull IOException e) {
-                log.warn("call to get suggestion failed", e);
+                if (call.isCanceled()) {
+                    log.debug("call to get suggestion was cancelled");
+                } else {
+                    log.warn("call to get suggestion failed", e);
+                }
                 clientThread.invoke(() -> onFailure.accept(new HttpResponseException(-1, "Unknown Error")));
             }
 
@@ -280,7 +305,10 @@ public class ApiRequestHandler {
                             Request newRequest = call.request().newBuilder()
                                     .header("Authorization", "Bearer " + loginResponseManager.getJwtToken())
                                     .build();
-                            client.newCall(newRequest).enqueue(this);
+                            // the retry is swapped into the handle so cancelling the request still reaches it
+                            Call retry = client.newCall(newRequest);
+                            handle.retryWith(retry);
+                            retry.enqueue(this);
                             return;
                         } else {
                             loginResponseManager.reset();
@@ -303,52 +331,42 @@ public class ApiRequestHandler {
                 }
             }
         });
+        return handle;
     }
 
     private void handleSuggestionResponse(Response response, Consumer<Suggestion> suggestionConsumer, Consumer<Data> graphDataConsumer) throws IOException {
-        if (response.body() == null) {
+        ResponseBody responseBody = response.body();
+        if (responseBody == null) {
             throw new IOException("empty suggestion request response");
         }
         String contentType = response.header("Content-Type");
         Suggestion s;
         if (contentType != null && contentType.contains("application/x-msgpack")) {
-            int contentLength = resolveContentLength(response);
-            int suggestionContentLength = resolveSuggestionContentLength(response);
-            int graphDataContentLength = contentLength - suggestionContentLength;
-            log.debug("msgpack suggestion response size is: {}, suggestion size is {}", contentLength, suggestionContentLength);
-
-            Data d = new Data();
-            try (InputStream is = response.body().byteStream()) {
-                byte[] suggestionBytes = new byte[suggestionContentLength];
-                int bytesRead = is.readNBytes(suggestionBytes, 0, suggestionContentLength);
-                if (bytesRead != suggestionContentLength) {
-                    throw new IOException("failed to read complete suggestion content: " + bytesRead + " of " + suggestionContentLength + " bytes");
-                }
-                s = Suggestion.fromMsgPack(ByteBuffer.wrap(suggestionBytes));
-                log.debug("suggestion received");
-                clientThread.invoke(() -> suggestionConsumer.accept(s));
+            // the suggestion map is followed directly by the graph data map, so we decode both straight off the
+            // response source. The suggestion is handed over as soon as its map is read, before the (much larger)
+            // graph data has arrived, and no content length headers are needed so chunked responses work too
+            BufferedSource source = responseBody.source();
+            s = Suggestion.fromMsgPack(source);
+            log.debug("suggestion received");
+            clientThread.invoke(() -> suggestionConsumer.accept(s));
 
-                if (graphDataContentLength == 0) {
-                    d.loadingErrorMessage = "No graph data loaded for this item.";
-                } else {
-                    try {
-                        byte[] remainingBytes = is.readAllBytes();
-                        if (graphDataContentLength != remainingBytes.length) {
-                            log.error("the graph data bytes read {} doesn't match the expected bytes {}", bytesRead, graphDataContentLength);
-                            d.loadingErrorMessage = "There was an issue loading the graph data for this item.";
-                        } else {
-                            try {
-                                d = Data.fromMsgPack(ByteBuffer.wrap(remainingBytes));
-                                log.debug("graph data received");
-                            } catch (Exception e) {
-                                log.error("error deserializing graph data", e);
-                                d.loadingErrorMessage = "There was an issue loading the graph data for this item.";
-                            }
-                        }
-                    } catch (IOException e) {
-                        log.error("error on reading graph data bytes from the suggestion response", e);
-                        d.loadingErrorMessage = "There was an issue loading the graph data for this item.";
+            Data d;
+            if (source.exhausted()) {
+                d = new Data();
+                d.loadingErrorMessage = "No graph data loaded for this item.";
+            } else {
+                try {
+                    d = Data.fromMsgPack(source);
+                    if (d == null) {
+                        d = new Data();
+                        d.loadingErrorMessage = "No graph data loaded for this item.";
+                    } else {
+                        log.debug("graph data received");
                     }
+                } catch (IOException | RuntimeException e) {
+                    log.error("error reading/deserializing graph data from the suggestion response", e);
+                    d = new Data();
+                    d.loadingErrorMessage = "There was an issue loading the graph data for this item.";
                 }
             }
             if (s != null && "wait".equals(s.getType())) {
@@ -357,7 +375,7 @@ public class ApiRequestHandler {
             Data finalD = d;
             clientThread.invoke(() -> graphDataConsumer.accept(finalD));
         } else {
-            String body = response.body().string();
+            String body = responseBody.string();
             log.debug("json suggestion response size is: {}", body.getBytes().length);
             s = gson.fromJson(body, Suggestion.class);
             clientThread.invoke(() -> suggestionConsumer.accept(s));
@@ -367,24 +385,6 @@ public class ApiRequestHandler {
         }
     }
 
-    private int resolveContentLength(Response resp) throws IOException {
-        try {
-            String cl = resp.header("Content-Length");
-            return Integer.parseInt(cl != null ? cl : "0");
-        } catch (NumberFormatException e) {
-            throw new IOException("Failed to parse response Content-Length", e);
-        }
-    }
-
-    private int resolveSuggestionContentLength(Response resp) throws IOException {
-        try {
-            String cl = resp.header("X-Suggestion-Content-Length");
-            return Integer.parseInt(cl != null ? cl : "0");
-        } catch (NumberFormatException e) {
-            throw new IOException("Failed to parse response X-Suggestion-Content-Length", e);
-        }
-    }
-
     private String extractErrorMessage(Response response) {
         if (response.body() != null) {
             try {
@@ -406,16 +406,32 @@ public class ApiRequestHandler {
 
     public void sendTransactionsAsync(List<Transaction> transactions, String displayName, Consumer<List<FlipV2>> onSuccess, Consumer<HttpResponseException> onFailure) {
         log.debug("sending {} transactions for display name {}", displayName, transactions.size());
-        JsonArray body = new JsonArray();
-        for (Transaction transaction : transactions) {
-            body.add(transaction.toJsonObject());
+        RequestBody requestBody;
+        if (isMsgPackRequestsEnabled()) {
+            Buffer body = new Buffer();
+            try {
+                MsgPackEncoder.writeArrayHeader(body, transactions.size());
+                for (Transaction transaction : transactions) {
+                    transaction.writeMsgPack(body);
+                }
+            } catch (IOException e) {
+                // writing to an in memory buffer doesn't fail
+                throw new IllegalStateException(e);
+            }
+            requestBody = msgPackBody(body);
+        } else {
+            JsonArray body = new JsonArray();
+            for (Transaction transaction : transactions) {
+                body.add(transaction.toJsonObject());
+            }
+            // FIXED: Swapped arguments for create() method
+            requestBody = RequestBody.create(MediaType.get("application/json; charset=utf-8"), body.toString());
         }
         String encodedDisplayName = URLEncoder.encode(displayName, StandardCharsets.UTF_8);
         Request request = new Request.Builder()
                 .url(API_BASE_URL + "/profit-tracking/client-transactions?display_name=" + encodedDisplayName)
                 .addHeader("Authorization", "Bearer " + loginResponseManager.getJwtToken())
-                // FIXED: Swapped arguments for create() method
-                .post(RequestBody.create(MediaType.get("application/json; charset=utf-8"), body.toString()))
+                .post(requestBody)
                 .build();
 
         client.newCall(request).enqueue(new Callback() {
@@ -463,7 +479,18 @@ public class ApiRequestHandler {
         });
     }
 
+    private interface ResponseBodyReader<T> {
+        T read(ResponseBody body) throws IOException;
+    }
+
     public <T> T doHttpRequest(String method, JsonElement bodyJson, String fullUrl, Type responseType) throws HttpResponseException {
+        if (responseType == Void.class) {
+            return doHttpRequest(method, bodyJson, fullUrl, (ResponseBodyReader<T>) (body) -> null);
+        }
+        return doHttpRequest(method, bodyJson, fullUrl, (body) -> gson.fromJson(body.charStream(), responseType));
+    }
+
+    private <T> T doHttpRequest(String method, JsonElement bodyJson, String fullUrl, ResponseBodyReader<T> bodyReader) throws HttpResponseException {
         String jwtToken = loginResponseManager.getJwtToken();
         if (jwtToken == null) {
             throw new IllegalStateException("Not authenticated. Please log in.");
@@ -495,33 +522,57 @@ public class ApiRequestHandler {
 
             try (Response finalResponse = response) {
                 if (finalResponse.isSuccessful()) {
-                    if (responseType == Void.class || finalResponse.body() == null) {
+                    if (finalResponse.body() == null) {
                         return null;
                     }
-                    String responseBody = finalResponse.body().string();
-                    return gson.fromJson(responseBody, responseType);
+                    return bodyReader.read(finalResponse.body());
                 } else {
                     throw new HttpResponseException(finalResponse.code(), extractErrorMessage(finalResponse));
                 }
             }
-        } catch (JsonSyntaxException | IOException e) {
+        } catch (JsonParseException | IllegalStateException | IOException e) {
             throw new HttpResponseException(-1, "Unknown server error (possible system update)", e);
         }
     }
 
     public void asyncGetItemPriceWithGraphData(int itemId, String displayName, Consumer<ItemPrice> consumer) {
-        JsonObject body = new JsonObject();
-        body.add("item_id", new JsonPrimitive(itemId));
-        body.add("display_name", new JsonPrimitive(displayName));
-        body.addProperty("f2p_only", preferencesManager.getPreferences().isF2pOnlyMode());
-        body.addProperty("timeframe_minutes", preferencesManager.getTimeframe());
-        body.addProperty("include_graph_data", true);
-        log.debug("requesting price graph data for item {}", itemId);
+        asyncGetItemPrice(itemId, displayName, true, consumer);
+    }
+
+    public void asyncGetItemPrice(int itemId, String displayName, boolean includeGraphData, Consumer<ItemPrice> consumer) {
+        boolean f2pOnly = preferencesManager.getPreferences().isF2pOnlyMode();
+        int timeframe = preferencesManager.getTimeframe();
+        RequestBody requestBody;
+        if (isMsgPackRequestsEnabled()) {
+            Buffer body = new Buffer();
+            try {
+                new MsgPackEncoder.MapWriter()
+                        .put("item_id", itemId)
+                        .put("display_name", displayName)
+                        .put("f2p_only", f2pOnly)
+                        .put("timeframe_minutes", timeframe)
+                        .put("include_graph_data", includeGraphData)
+                        .writeTo(body);
+            } catch (IOException e) {
+                // writing to an in memory buffer doesn't fail
+                throw new IllegalStateException(e);
+            }
+            requestBody = msgPackBody(body);
+        } else {
+            JsonObject body = new JsonObject();
+            body.add("item_id", new JsonPrimitive(itemId));
+            body.add("display_name", new JsonPrimitive(displayName));
+            body.addProperty("f2p_only", f2pOnly);
+            body.addProperty("timeframe_minutes", timeframe);
+            body.addProperty("include_graph_data", includeGraphData);
+            // FIXED: Swapped arguments for create() method
+            requestBody = RequestBody.create(MediaType.get("application/json; charset=utf-8"), body.toString());
+        }
+        log.debug("requesting price (graph data: {}) for item {}", includeGraphData, itemId);
         Request request = new Request.Builder()
                 .url(API_BASE_URL + "/prices")
                 .addHeader("Authorization", "Bearer " + loginResponseManager.getJwtToken())
-                // FIXED: Swapped arguments for create() method
-                .post(RequestBody.create(MediaType.get("application/json; charset=utf-8"), body.toString()))
+                .post(requestBody)
                 .build();
 
         client.newBuilder()
@@ -552,8 +603,7 @@ public class ApiRequestHandler {
                                 log.error("get copilot price for item {} failed with http status code {}", itemId, response.code());
                                 throw new IOException("Request failed with code " + response.code());
                             } else {
-                                byte[] d = response.body().bytes();
-                                ItemPrice ip = ItemPrice.fromMsgPack(ByteBuffer.wrap(d));
+                                ItemPrice ip = ItemPrice.fromMsgPack(response.body().source());
                                 log.debug("price graph data received for item {}", itemId);
                                 clientThread.invoke(() -> consumer.accept(ip));
                             }
@@ -659,6 +709,41 @@ public class ApiRequestHandler {
         return doHttpRequest("GET", null, API_BASE_URL + "/profit-tracking/client-flips?display_name=" + encodedDisplayName, respType);
     }
 
+    /**
+     * Loads the flips changed since the given epoch second, or all flips if since is null (a server that
+     * doesn't support since returns all flips, which merge the same way). The flips are read straight off
+     * the response stream and handed over in batches, so neither the response text nor the full list is
+     * ever held in memory. Returns the number of flips read.
+     */
+    public int streamFlips(String displayName, Integer since, int batchSize, Consumer<List<FlipV2>> onBatch) throws HttpResponseException {
+        String encodedDisplayName = URLEncoder.encode(displayName, StandardCharsets.UTF_8);
+        String url = API_BASE_URL + "/profit-tracking/client-flips?display_name=" + encodedDisplayName;
+        if (since != null) {
+            url += "&since=" + since;
+        }
+        Integer read = doHttpRequest("GET", null, url, (body) -> {
+            int n = 0;
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                List<FlipV2> batch = new ArrayList<>(batchSize);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    batch.add(gson.fromJson(reader, FlipV2.class));
+                    n++;
+                    if (batch.size() == batchSize) {
+                        onBatch.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                reader.endArray();
+                if (!batch.isEmpty()) {
+                    onBatch.accept(batch);
+                }
+            }
+            return n;
+        });
+        return read == null ? 0 : read;
+    }
+
     public void sendDebugData(JsonObject bodyJson) {
         String jwtToken = loginResponseManager.getJwtToken();
         Instant now = Instant.now();
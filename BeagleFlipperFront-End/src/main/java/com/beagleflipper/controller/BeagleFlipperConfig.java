@@ -5,6 +5,7 @@ import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.Keybind;
+import net.runelite.client.config.Range;
 import net.runelite.client.ui.ColorScheme;
 
 import java.awt.*;
@@ -160,4 +161,25 @@ public interface BeagleFlipperConfig extends Config
     {
         return true;
     }
-}
\ No newline at end of file
+
+    @ConfigItem(
+            keyName = "msgPackRequests",
+            name = "Compact request encoding",
+            description = "Send suggestion, price and transaction requests as msgpack instead of json. Smaller uploads, requires server support."
+    )
+    default boolean msgPackRequests()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "transactionSyncBatchesInFlight",
+            name = "Transaction upload batches",
+            description = "How many batches of transactions may be uploading at the same time when catching up on a backlog."
+    )
+    @Range(min = 1, max = 8)
+    default int transactionSyncBatchesInFlight()
+    {
+        return 2;
+    }
+}
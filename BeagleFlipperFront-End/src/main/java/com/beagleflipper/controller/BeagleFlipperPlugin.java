@@ -116,16 +116,16 @@ public class BeagleFlipperPlugin extends Plugin {
 
 		mainPanel.refresh();
 
+		// the offer and inventory events the session tracks won't fire if we start up already logged in
+		if (client.getGameState() == GameState.LOGGED_IN) {
+			clientThread.invoke(() -> sessionManager.seed(client.getGrandExchangeOffers(), client.getItemContainer(InventoryID.INVENTORY)));
+		}
+
 		executorService.scheduleAtFixedRate(() ->
 						clientThread.invoke(() -> {
-							boolean loginValid = osrsLoginManager.isValidLoginState();
-							if (loginValid) {
-								AccountStatus accStatus = accountStatusManager.getAccountStatus();
-								boolean isFlipping = accStatus != null && accStatus.currentlyFlipping();
-								long cashStack = (accStatus == null || accStatus.getInventory() == null) ? 0 : accStatus.getInventory().getTotalGp();
-								if (sessionManager.updateSessionStats(isFlipping, cashStack)) {
-									mainPanel.copilotPanel.statsPanel.refresh(false, loginResponseManager.isLoggedIn() && osrsLoginManager.isValidLoginState());
-								}
+							// whether we're flipping and the cash stack are tracked from the offer and inventory events
+							if (osrsLoginManager.isValidLoginState() && sessionManager.updateSessionStats()) {
+								mainPanel.copilotPanel.statsPanel.refresh(false, loginResponseManager.isLoggedIn());
 							}
 						})
 				, 2000, 1000, TimeUnit.MILLISECONDS);
@@ -143,6 +143,7 @@ public class BeagleFlipperPlugin extends Plugin {
 			}
 		}
 		keybindHandler.unregister();
+		transactionManger.reset();
 	}
 
 	@Provides
@@ -152,11 +153,17 @@ public class BeagleFlipperPlugin extends Plugin {
 
 	@Subscribe
 	public void onGrandExchangeOfferChanged(GrandExchangeOfferChanged event) {
+		accountStatusManager.onOffersChanged();
+		sessionManager.onOfferChanged(event.getSlot(), event.getOffer().getState());
 		offerEventHandler.onGrandExchangeOfferChanged(event);
 	}
 
 	@Subscribe
 	public void onItemContainerChanged(ItemContainerChanged event) {
+		if (event.getContainerId() == InventoryID.INVENTORY.getId()) {
+			accountStatusManager.onInventoryChanged();
+			sessionManager.onInventoryChanged(event.getItemContainer());
+		}
 		if (event.getContainerId() == InventoryID.INVENTORY.getId() && grandExchange.isOpen()) {
 			suggestionManager.setSuggestionNeeded(true);
 		}
@@ -209,6 +216,7 @@ public class BeagleFlipperPlugin extends Plugin {
 				osrsLoginManager.reset();
 				accountStatusManager.reset();
 				grandExchangeUncollectedManager.reset();
+				transactionManger.reset();
 				statsPanel.refresh(true, loginResponseManager.isLoggedIn() && osrsLoginManager.isValidLoginState());
 				mainPanel.refresh();
 				break;
@@ -216,6 +224,7 @@ public class BeagleFlipperPlugin extends Plugin {
 			case HOPPING:
 			case CONNECTION_LOST:
 				osrsLoginManager.setLastLoginTick(client.getTickCount());
+				accountStatusManager.invalidate();
 				break;
 			case LOGGED_IN:
 				clientThread.invokeLater(() -> {
@@ -0,0 +1,221 @@
+package com.beagleflipper.controller;
+
+import com.beagleflipper.model.FlipV2;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local copy of an account's flip history so stats can be shown straight away on login, with only the
+ * flips changed since the stored watermark fetched from the server afterwards.
+ * <p>
+ * Binary layout: magic, version, watermark, the display name to account id map, then one record per flip
+ * prefixed by a 1 byte (a 0 byte ends the list). Item and account display names are written once and
+ * referenced by index after that.
+ */
+@Slf4j
+public class FlipCacheFile {
+
+    private static final int MAGIC = 0x42464643; // BFFC
+    private static final int VERSION = 2;
+    private static final int NULL_STRING = -1;
+
+    @Value
+    public static class Snapshot {
+        int watermark;
+        Map<String, Integer> displayNameToAccountId;
+        List<FlipV2> flips;
+    }
+
+    public static Snapshot load(String displayName) {
+        File file = file(displayName);
+        if (!file.exists()) {
+            log.debug("no flip cache for {}", displayName);
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return decode(in);
+        } catch (IOException | RuntimeException e) {
+            // a broken cache just means a full load from the server, drop it so it isn't read again
+            log.warn("error reading flip cache file {}, deleting it", file, e);
+            if (!file.delete()) {
+                log.warn("could not delete flip cache file {}", file);
+            }
+            return null;
+        }
+    }
+
+    static Snapshot decode(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a flip cache file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported flip cache version " + version);
+        }
+        int watermark = in.readInt();
+        int names = in.readInt();
+        if (names < 0) {
+            throw new IOException("corrupt flip cache, " + names + " display names");
+        }
+        Map<String, Integer> displayNameToAccountId = new HashMap<>(names);
+        for (int i = 0; i < names; i++) {
+            String name = in.readUTF();
+            displayNameToAccountId.put(name, in.readInt());
+        }
+        List<String> strings = new ArrayList<>();
+        List<FlipV2> flips = new ArrayList<>();
+        while (in.readByte() != 0) {
+            FlipV2 f = new FlipV2();
+            f.setId(in.readUTF());
+            f.setAccountId(in.readInt());
+            f.setItemId(in.readInt());
+            f.setItemName(readString(in, strings));
+            f.setOpenedTime(in.readInt());
+            f.setOpenedQuantity(in.readInt());
+            f.setSpent(in.readLong());
+            f.setClosedTime(in.readInt());
+            f.setClosedQuantity(in.readInt());
+            f.setReceivedPostTax(in.readLong());
+            f.setProfit(in.readLong());
+            f.setTaxPaid(in.readLong());
+            f.setClosed(in.readBoolean());
+            f.setAccountDisplayName(readString(in, strings));
+            flips.add(f);
+        }
+        return new Snapshot(watermark, displayNameToAccountId, flips);
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        int ref = in.readInt();
+        if (ref == NULL_STRING) {
+            return null;
+        }
+        if (ref == strings.size()) {
+            strings.add(in.readUTF());
+        } else if (ref < 0 || ref > strings.size()) {
+            throw new IOException("corrupt flip cache, string ref " + ref + " of " + strings.size());
+        }
+        return strings.get(ref);
+    }
+
+    /**
+     * Encodes flips into memory one at a time, so the caller can feed it straight from its own store
+     * while holding its lock and leave the disk write until after.
+     */
+    public static class Writer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> stringRefs = new HashMap<>();
+        private int flips = 0;
+
+        public Writer(int watermark, Map<String, Integer> displayNameToAccountId) {
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(watermark);
+                out.writeInt(displayNameToAccountId.size());
+                for (Map.Entry<String, Integer> e : displayNameToAccountId.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeInt(e.getValue());
+                }
+            } catch (IOException e) {
+                // writing to memory doesn't fail
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public void add(FlipV2 f) {
+            try {
+                out.writeByte(1);
+                out.writeUTF(f.getId());
+                out.writeInt(f.getAccountId());
+                out.writeInt(f.getItemId());
+                writeString(f.getItemName());
+                out.writeInt(f.getOpenedTime());
+                out.writeInt(f.getOpenedQuantity());
+                out.writeLong(f.getSpent());
+                out.writeInt(f.getClosedTime());
+                out.writeInt(f.getClosedQuantity());
+                out.writeLong(f.getReceivedPostTax());
+                out.writeLong(f.getProfit());
+                out.writeLong(f.getTaxPaid());
+                out.writeBoolean(f.isClosed());
+                writeString(f.getAccountDisplayName());
+                flips++;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                out.writeInt(NULL_STRING);
+                return;
+            }
+            Integer ref = stringRefs.get(s);
+            if (ref == null) {
+                ref = stringRefs.size();
+                stringRefs.put(s, ref);
+                out.writeInt(ref);
+                out.writeUTF(s);
+            } else {
+                out.writeInt(ref);
+            }
+        }
+
+        byte[] toByteArray() {
+            try {
+                out.writeByte(0);
+                out.flush();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Replaces the cache file, written to a temp file first so a crash never leaves a half written cache.
+         */
+        public void store(String displayName) {
+            File file = file(displayName);
+            File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            byte[] data = toByteArray();
+            try {
+                try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                    fos.write(data);
+                    fos.getFD().sync();
+                }
+                try {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                log.debug("stored {} flips ({} bytes) to flip cache for {}", flips, data.length, displayName);
+            } catch (IOException e) {
+                log.warn("error storing flip cache file {}", file, e);
+            }
+        }
+    }
+
+    private static File file(String displayName) {
+        return new File(Persistance.PARENT_DIRECTORY, String.format(Persistance.FLIP_CACHE_FILE_TEMPLATE, Persistance.hashDisplayName(displayName)));
+    }
+}
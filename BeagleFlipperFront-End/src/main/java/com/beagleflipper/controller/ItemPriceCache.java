@@ -0,0 +1,154 @@
+package com.beagleflipper.controller;
+
+import com.beagleflipper.model.ItemPrice;
+import com.beagleflipper.model.SuggestionPreferencesManager;
+import com.beagleflipper.ui.graph.model.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.callback.ClientThread;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Sits in front of the /prices endpoint so re-opening a GE slot or the price graph for the same item
+ * doesn't go back to the server every time. Prices go stale quickly but the hourly graph arrays don't,
+ * so when only the prices are stale we re-fetch them without the graph data and reuse the cached graph.
+ * Concurrent requests for the same item are coalesced into a single call.
+ */
+@Slf4j
+@Singleton
+@RequiredArgsConstructor(onConstructor_ = @Inject)
+public class ItemPriceCache {
+
+    private static final int MAX_ITEMS = 64;
+    static final long PRICE_TTL_MS = 60_000;
+    static final long GRAPH_TTL_MS = 10 * 60_000;
+
+    private final ApiRequestHandler apiRequestHandler;
+    private final SuggestionPreferencesManager preferencesManager;
+    private final ClientThread clientThread;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(MAX_ITEMS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ITEMS;
+        }
+    };
+    private final Map<Key, List<Consumer<ItemPrice>>> pending = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    @Value
+    private static class Key {
+        int itemId;
+        boolean f2pOnly;
+        int timeframe;
+    }
+
+    private static class Entry {
+        ItemPrice price;
+        long priceFetchedAt;
+        Data graphData;
+        long graphFetchedAt;
+    }
+
+    public void getItemPrice(int itemId, String displayName, Consumer<ItemPrice> consumer) {
+        fetch(itemId, displayName, true, consumer);
+    }
+
+    public void getItemPriceWithGraphData(int itemId, String displayName, Consumer<ItemPrice> consumer) {
+        fetch(itemId, displayName, false, consumer);
+    }
+
+    private void fetch(int itemId, String displayName, boolean pricesOnly, Consumer<ItemPrice> consumer) {
+        Key key = new Key(itemId, preferencesManager.getPreferences().isF2pOnlyMode(), preferencesManager.getTimeframe());
+        long now = clock.getAsLong();
+        Data cachedGraph;
+        synchronized (this) {
+            Entry e = entries.get(key);
+            boolean pricesFresh = e != null && now - e.priceFetchedAt < PRICE_TTL_MS;
+            boolean graphFresh = e != null && e.graphData != null && now - e.graphFetchedAt < GRAPH_TTL_MS;
+            if (pricesFresh && (pricesOnly || graphFresh)) {
+                hits.incrementAndGet();
+                ItemPrice cached = new ItemPrice(e.price.getSellPrice(), e.price.getBuyPrice(), null, e.graphData);
+                // always hand the result over asynchronously, like a real response, so callers see the same ordering
+                clientThread.invokeLater(() -> consumer.accept(cached));
+                return;
+            }
+            List<Consumer<ItemPrice>> waiting = pending.get(key);
+            if (waiting != null) {
+                coalesced.incrementAndGet();
+                waiting.add(consumer);
+                return;
+            }
+            misses.incrementAndGet();
+            waiting = new ArrayList<>();
+            waiting.add(consumer);
+            pending.put(key, waiting);
+            cachedGraph = graphFresh ? e.graphData : null;
+        }
+
+        // a pending request always fetches the graph data unless we still hold a fresh copy, so any
+        // callers coalesced onto it get the graph regardless of what they asked for
+        boolean includeGraphData = cachedGraph == null;
+        log.debug("item price cache miss for item {} (fetching graph data: {})", itemId, includeGraphData);
+        apiRequestHandler.asyncGetItemPrice(itemId, displayName, includeGraphData, (ip) -> onResponse(key, cachedGraph, ip));
+    }
+
+    private void onResponse(Key key, Data cachedGraph, ItemPrice ip) {
+        ItemPrice result = ip;
+        List<Consumer<ItemPrice>> waiting;
+        synchronized (this) {
+            waiting = pending.remove(key);
+            boolean isError = ip == null || (ip.getMessage() != null && !ip.getMessage().isEmpty());
+            if (!isError) {
+                long now = clock.getAsLong();
+                Entry e = entries.computeIfAbsent(key, k -> new Entry());
+                e.price = ip;
+                e.priceFetchedAt = now;
+                if (ip.getGraphData() != null) {
+                    e.graphData = ip.getGraphData();
+                    e.graphFetchedAt = now;
+                } else if (cachedGraph != null) {
+                    result = new ItemPrice(ip.getSellPrice(), ip.getBuyPrice(), ip.getMessage(), cachedGraph);
+                }
+            }
+        }
+        if (waiting == null) {
+            return;
+        }
+        for (Consumer<ItemPrice> c : waiting) {
+            c.accept(result);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
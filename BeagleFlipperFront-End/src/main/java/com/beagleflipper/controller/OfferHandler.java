@@ -24,7 +24,7 @@ public class OfferHandler {
 
     private final Client client;
     private final SuggestionManager suggestionManager;
-    private final ApiRequestHandler apiRequestHandler;
+    private final ItemPriceCache itemPriceCache;
     private final OsrsLoginManager osrsLoginManager;
     private final OfferManager offerManager;
     private final HighlightController highlightController;
@@ -72,7 +72,7 @@ public class OfferHandler {
                 }
                 highlightController.redraw();
             };
-            apiRequestHandler.getItemPriceAsync(currentItemId, osrsLoginManager.getPlayerDisplayName(), consumer);
+            itemPriceCache.getItemPrice(currentItemId, osrsLoginManager.getPlayerDisplayName(), consumer);
         } else {
             offerManager.setViewedSlotItemPrice(-1);
             offerManager.setViewedSlotItemId(-1);
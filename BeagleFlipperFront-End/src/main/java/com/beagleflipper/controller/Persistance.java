@@ -1,18 +1,11 @@
 package com.beagleflipper.controller;
 
 import com.beagleflipper.model.LoginResponse;
-import com.beagleflipper.model.Transaction;
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.RuneLite;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -20,7 +13,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.*;
+import java.util.concurrent.Executor;
 
 @Slf4j
 public class Persistance {
@@ -28,6 +21,7 @@ public class Persistance {
     public static final File PARENT_DIRECTORY = new File(RuneLite.RUNELITE_DIR, "beagle-flipper");
     public static final String UN_ACKED_TRANSACTIONS_FILE_TEMPLATE = "%s_un_acked.jsonl";
     public static final String ALL_TRANSACTIONS_FILE_TEMPLATE = "%s_all_transactions.jsonl";
+    public static final String FLIP_CACHE_FILE_TEMPLATE = "%s_flips.bin";
     public static final String LOGIN_RESPONSE_JSON_FILE = "login-response.json";
     public static File directory;
 
@@ -97,54 +91,9 @@ public class Persistance {
     }
 
 
-    public static List<Transaction> loadUnAckedTransactions(String displayName) {
-        List<Transaction> transactions = new ArrayList<>();
+    public static UnAckedTransactionLog openUnAckedTransactionLog(String displayName, Executor executor) {
         File file = new File(PARENT_DIRECTORY, String.format(UN_ACKED_TRANSACTIONS_FILE_TEMPLATE, hashDisplayName(displayName)));
-        if (!file.exists()) {
-            log.info("no existing un acked transactions file for {}", displayName);
-            return new ArrayList<>();
-        }
-        // FIX: Change Set<UUID> to Set<String> to match Transaction.id type
-        Set<String> added = new HashSet<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isEmpty()) {
-                    continue;
-                }
-                try {
-                    Transaction transaction = gson.fromJson(line, Transaction.class);
-                    // FIX: transaction.getId() is now String, Set<String> accepts it.
-                    if (!added.contains(transaction.getId())) {
-                        transactions.add(transaction);
-                        added.add(transaction.getId());
-                    }
-                } catch (JsonSyntaxException e) {
-                    log.warn("error deserializing transaction line '{}' file {}", line, file, e);
-                }
-            }
-        } catch (FileNotFoundException e) {
-            log.info("no existing un acked transactions file for {}", displayName);
-            return new ArrayList<>();
-        } catch (IOException e) {
-            log.warn("error loading un acked transaction file {}", file, e);
-            return new ArrayList<>();
-        }
-        log.info("loaded {} stored transactions for {}", transactions.size(), displayName);
-        return transactions;
-    }
-
-    public static void storeUnAckedTransactions(List<Transaction> transactions, String displayName) {
-        File unackedTransactionsFile = new File(PARENT_DIRECTORY, String.format(UN_ACKED_TRANSACTIONS_FILE_TEMPLATE, hashDisplayName(displayName)));
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(unackedTransactionsFile, false))) {
-            for (Transaction transaction : transactions) {
-                String json = gson.toJson(transaction);
-                w.write(json);
-                w.newLine();
-            }
-        } catch (IOException e) {
-            log.warn("error storing un acked transactions to file {}", unackedTransactionsFile, e);
-        }
+        return new UnAckedTransactionLog(file, gson, executor);
     }
 
     public static String hashDisplayName(String displayName) {
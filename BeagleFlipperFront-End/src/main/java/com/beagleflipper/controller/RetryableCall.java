@@ -0,0 +1,29 @@
+package com.beagleflipper.controller;
+
+import okhttp3.Call;
+
+/**
+ * Handle on a request that may be re-sent as a new call, e.g. after a token refresh. Cancelling it cancels
+ * whichever call is current, and a call swapped in after that is cancelled straight away.
+ */
+public class RetryableCall {
+
+    private Call call;
+    private boolean cancelled = false;
+
+    RetryableCall(Call call) {
+        this.call = call;
+    }
+
+    synchronized void retryWith(Call retry) {
+        call = retry;
+        if (cancelled) {
+            retry.cancel();
+        }
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        call.cancel();
+    }
+}
@@ -2,9 +2,12 @@ package com.beagleflipper.controller;
 
 import com.beagleflipper.model.*;
 import com.beagleflipper.ui.*;
+import com.beagleflipper.ui.graph.GraphDataCache;
 import com.beagleflipper.ui.graph.PriceGraphController;
 import com.beagleflipper.ui.graph.model.Data;
+import com.beagleflipper.util.MsgPackEncoder;
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -14,10 +17,13 @@ import net.runelite.api.Client;
 import net.runelite.client.Notifier;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.chat.ChatMessageBuilder;
+import okhttp3.RequestBody;
+import okio.Buffer;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.swing.JOptionPane;
+import java.io.IOException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
 
@@ -47,6 +53,7 @@ public class SuggestionController {
     private final GrandExchangeUncollectedManager uncollectedManager;
     private final PriceGraphController graphPriceGraphController;
     private final SuggestionPreferencesManager preferencesManager;
+    private final GraphDataCache graphDataCache;
 
     private MainPanel mainPanel;
     private LoginPanelV2 loginPanel;
@@ -56,6 +63,15 @@ public class SuggestionController {
     // This timestamp will track when the user last clicked the skip or block button.
     private long lastManualActionTime = 0;
 
+    private SuggestionRequestScheduler requestScheduler;
+
+    private synchronized SuggestionRequestScheduler getRequestScheduler() {
+        if (requestScheduler == null) {
+            requestScheduler = new SuggestionRequestScheduler(executorService, this::startSuggestionRequest);
+        }
+        return requestScheduler;
+    }
+
     public void togglePause() {
         if (pausedManager.isPaused()) {
             pausedManager.setPaused(false);
@@ -69,7 +85,7 @@ public class SuggestionController {
     }
 
     void onGameTick() {
-        if (suggestionManager.isSuggestionRequestInProgress() || suggestionManager.isGraphDataReadingInProgress()) {
+        if (getRequestScheduler().isInFlight()) {
             return;
         }
         if (isUncollectedOutOfSync()) {
@@ -92,8 +108,11 @@ public class SuggestionController {
         }
 
         if ((suggestionManager.isSuggestionNeeded() || isSuggestionOutOfDate) && !(grandExchange.isSlotOpen() && !accountStatusManager.isSuggestionSkipped())) {
-            getSuggestionAsync();
+            // however many triggers set the suggestion needed flag since the last tick, they result in one request
+            suggestionManager.setSuggestionNeeded(false);
+            getRequestScheduler().markDirty();
         }
+        getRequestScheduler().onTick();
     }
 
     public void skipSuggestion() {
@@ -103,9 +122,10 @@ public class SuggestionController {
             // Record the time of the manual action to start the grace period.
             this.lastManualActionTime = System.currentTimeMillis();
             accountStatusManager.setSkipSuggestion(s.getId());
-            suggestionManager.setSuggestionNeeded(true);
+            suggestionManager.setSuggestionNeeded(false);
             suggestionPanel.showLoading();
-            getSuggestionAsync(); // Immediately fetch a new suggestion
+            // Immediately fetch a new suggestion, cancelling any request that would now be out of date
+            getRequestScheduler().supersede();
         } else {
             log.debug("User tried to skip but there was no active suggestion.");
         }
@@ -132,9 +152,10 @@ public class SuggestionController {
             // Record the time of the manual action to start the grace period.
             this.lastManualActionTime = System.currentTimeMillis();
             preferencesManager.blockItem(s.getItemId());
-            suggestionManager.setSuggestionNeeded(true);
+            suggestionManager.setSuggestionNeeded(false);
             suggestionPanel.showLoading();
-            getSuggestionAsync(); // Immediately fetch a new suggestion
+            // Immediately fetch a new suggestion, cancelling any request that would now be out of date
+            getRequestScheduler().supersede();
         } else {
             log.debug("User canceled blocking for {}", itemName);
         }
@@ -158,21 +179,28 @@ public class SuggestionController {
 
     public void getSuggestionAsync() {
         suggestionManager.setSuggestionNeeded(false);
+        getRequestScheduler().requestNow();
+    }
+
+    private RetryableCall startSuggestionRequest(long generation) {
         if (!loginResponseManager.isLoggedIn() || !osrsLoginManager.isValidLoginState()) {
-            return;
-        }
-        if (suggestionManager.isSuggestionRequestInProgress()) {
-            return;
+            clearRequestInProgress();
+            return null;
         }
         AccountStatus accountStatus = accountStatusManager.getAccountStatus();
         if (accountStatus == null) {
-            return;
+            clearRequestInProgress();
+            return null;
         }
         suggestionManager.setSuggestionRequestInProgress(true);
         suggestionManager.setGraphDataReadingInProgress(true);
         Suggestion oldSuggestion = suggestionManager.getSuggestion();
 
         Consumer<Suggestion> suggestionConsumer = (newSuggestion) -> {
+            if (!getRequestScheduler().isCurrent(generation)) {
+                log.debug("dropping suggestion from superseded request");
+                return;
+            }
             log.info(">>>>>> SUGGESTION RECEIVED: Type='{}', Item='{}', Price={}, Quantity={}, Message='{}'",
                     newSuggestion.getType(),
                     newSuggestion.getName(),
@@ -180,6 +208,11 @@ public class SuggestionController {
                     newSuggestion.getQuantity(),
                     newSuggestion.getMessage());
 
+            if (newSuggestion.getStatusAck() > 0) {
+                accountStatusManager.onStatusAcked(newSuggestion.getStatusAck());
+            } else {
+                accountStatusManager.resetAckedStatus();
+            }
             suggestionManager.setSuggestion(newSuggestion);
             suggestionManager.setSuggestionError(null);
             suggestionManager.setSuggestionRequestInProgress(false);
@@ -189,10 +222,18 @@ public class SuggestionController {
             showNotifications(oldSuggestion, newSuggestion, accountStatus);
         };
         Consumer<Data> graphDataConsumer = (d) -> {
-            graphPriceGraphController.setSuggestedItemGraphData(d);
+            if (!getRequestScheduler().complete(generation)) {
+                return;
+            }
+            graphPriceGraphController.setSuggestedItemGraphData(graphDataCache.merge(d));
             suggestionManager.setGraphDataReadingInProgress(false);
         };
         Consumer<HttpResponseException> onFailure = (e) -> {
+            if (!getRequestScheduler().complete(generation)) {
+                return;
+            }
+            // the server may have lost or rejected the snapshot our patch was based on
+            accountStatusManager.resetAckedStatus();
             suggestionManager.setSuggestion(null);
             suggestionManager.setSuggestionError(e);
             suggestionManager.setSuggestionRequestInProgress(false);
@@ -208,8 +249,20 @@ public class SuggestionController {
         suggestionPanel.refresh();
         log.debug("tick {} getting suggestion", client.getTickCount());
 
+        boolean isPriceGraphWebsite = config.priceGraphWebsite() == BeagleFlipperConfig.PriceGraphWebsite.BEAGLE_FLIPPER;
+
         // Send the request to the server
-        apiRequestHandler.getSuggestionAsync(accountStatus.toJson(gson, grandExchange.isOpen(), config.priceGraphWebsite() == BeagleFlipperConfig.PriceGraphWebsite.BEAGLE_FLIPPER), suggestionConsumer, graphDataConsumer, onFailure);
+        RetryableCall call;
+        if (apiRequestHandler.isMsgPackRequestsEnabled()) {
+            call = apiRequestHandler.getSuggestionAsync(toMsgPackRequestBody(accountStatus, isPriceGraphWebsite), suggestionConsumer, graphDataConsumer, onFailure);
+        } else {
+            JsonObject status = accountStatusManager.toRequestJson(accountStatus, gson, grandExchange.isOpen(), isPriceGraphWebsite);
+            if (isPriceGraphWebsite) {
+                // lets the server send only the graph points newer than what we already hold for the item
+                status.add("graph_watermarks", graphDataCache.watermarksJson());
+            }
+            call = apiRequestHandler.getSuggestionAsync(status, suggestionConsumer, graphDataConsumer, onFailure);
+        }
 
         // The "skip" flag has now been sent to the server. We can safely reset it
         // on the client-side so that the *next* automatic refresh doesn't also
@@ -217,9 +270,32 @@ public class SuggestionController {
         if (accountStatus.isSuggestionSkipped()) {
             accountStatusManager.resetSkipSuggestion();
         }
+        return call;
     }
 
 
+    private RequestBody toMsgPackRequestBody(AccountStatus accountStatus, boolean isPriceGraphWebsite) {
+        Buffer body = new Buffer();
+        try {
+            MsgPackEncoder.MapWriter status = accountStatusManager.toRequestMsgPack(accountStatus, grandExchange.isOpen(), isPriceGraphWebsite);
+            if (isPriceGraphWebsite) {
+                graphDataCache.writeWatermarks(status.key("graph_watermarks"));
+            }
+            status.writeTo(body);
+        } catch (IOException e) {
+            // writing to an in memory buffer doesn't fail
+            throw new IllegalStateException(e);
+        }
+        log.debug("sending msgpack status of {} bytes", body.size());
+        return ApiRequestHandler.msgPackBody(body);
+    }
+
+    private void clearRequestInProgress() {
+        // a superseded request may have left these set
+        suggestionManager.setSuggestionRequestInProgress(false);
+        suggestionManager.setGraphDataReadingInProgress(false);
+    }
+
     void showNotifications(Suggestion oldSuggestion, Suggestion newSuggestion, AccountStatus accountStatus) {
         if (shouldNotify(newSuggestion, oldSuggestion)) {
             if (config.enableTrayNotifications()) {
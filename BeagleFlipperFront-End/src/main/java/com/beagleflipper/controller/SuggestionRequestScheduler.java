@@ -0,0 +1,164 @@
+package com.beagleflipper.controller;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes sure there is at most one suggestion request in flight, plus at most one waiting behind it.
+ * Triggers arriving while a request is in flight only mark the scheduler dirty, so a burst of them
+ * collapses into a single follow up request which is started on the next tick. A skip/block supersedes
+ * the in flight request: its call is cancelled and a fresh one is started straight away.
+ * <p>
+ * Every request gets a generation number, responses belonging to a superseded generation are
+ * recognised through {@link #isCurrent} and must be dropped by the caller.
+ */
+@Slf4j
+public class SuggestionRequestScheduler {
+
+    static final long WATCHDOG_TIMEOUT_SECONDS = 60;
+
+    public interface RequestStarter {
+        /**
+         * Sends a suggestion request tagged with the given generation, returning its call or null if
+         * no request could be sent right now.
+         */
+        RetryableCall start(long generation);
+    }
+
+    private final ScheduledExecutorService executorService;
+    private final RequestStarter starter;
+
+    private long generation = 0;
+    private long completedGeneration = 0;
+    private RetryableCall inFlight = null;
+    // a generation has been reserved and its request is being started
+    private boolean starting = false;
+    private boolean dirty = false;
+
+    public SuggestionRequestScheduler(ScheduledExecutorService executorService, RequestStarter starter) {
+        this.executorService = executorService;
+        this.starter = starter;
+    }
+
+    /**
+     * Records that a new suggestion is wanted. The request is sent on the next tick once nothing is in flight.
+     */
+    public synchronized void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Sends a request as soon as possible, either now or once the in flight request completes.
+     */
+    public void requestNow() {
+        long requestGeneration;
+        synchronized (this) {
+            dirty = true;
+            requestGeneration = reserve();
+        }
+        start(requestGeneration);
+    }
+
+    /**
+     * Cancels whatever is in flight, since its result is about to be out of date, and sends a new request now.
+     */
+    public void supersede() {
+        long requestGeneration;
+        synchronized (this) {
+            if (inFlight != null) {
+                log.debug("cancelling superseded suggestion request (generation {})", generation);
+                inFlight.cancel();
+                inFlight = null;
+            }
+            // any response still on its way for the old generation is now ignored
+            generation++;
+            dirty = true;
+            requestGeneration = reserve();
+        }
+        start(requestGeneration);
+    }
+
+    public void onTick() {
+        long requestGeneration;
+        synchronized (this) {
+            requestGeneration = reserve();
+        }
+        start(requestGeneration);
+    }
+
+    public synchronized boolean isCurrent(long requestGeneration) {
+        return requestGeneration == generation;
+    }
+
+    /**
+     * Called once a request has completely finished (the graph data was read or the request failed).
+     * Returns false if the request was superseded, in which case the result should be ignored.
+     */
+    public synchronized boolean complete(long requestGeneration) {
+        if (requestGeneration != generation) {
+            return false;
+        }
+        completedGeneration = requestGeneration;
+        inFlight = null;
+        return true;
+    }
+
+    public synchronized boolean isInFlight() {
+        return inFlight != null;
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Takes the next generation if a request should be sent, or returns 0 if not. The request is only
+     * started once the lock is released, with the slot held by {@code starting} until then.
+     */
+    private long reserve() {
+        if (inFlight != null || starting || !dirty) {
+            return 0;
+        }
+        dirty = false;
+        starting = true;
+        return ++generation;
+    }
+
+    /**
+     * Runs the starter outside the lock, as building and sending the request is slow and the response
+     * callback must not wait behind it.
+     */
+    private void start(long requestGeneration) {
+        while (requestGeneration != 0) {
+            RetryableCall call = starter.start(requestGeneration);
+            synchronized (this) {
+                starting = false;
+                if (requestGeneration != generation) {
+                    // superseded while it was being started, replace it straight away
+                    if (call != null) {
+                        call.cancel();
+                    }
+                    requestGeneration = reserve();
+                    continue;
+                }
+                // a null call means nothing was sent, and a request can complete before its starter returns
+                if (call != null && completedGeneration != requestGeneration) {
+                    inFlight = call;
+                    long watched = requestGeneration;
+                    executorService.schedule(() -> onWatchdog(watched), WATCHDOG_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+                requestGeneration = 0;
+            }
+        }
+    }
+
+    synchronized void onWatchdog(long requestGeneration) {
+        if (requestGeneration == generation && inFlight != null) {
+            log.warn("suggestion request (generation {}) has not completed after {}s, cancelling it", requestGeneration, WATCHDOG_TIMEOUT_SECONDS);
+            // the cancelled call reports a failure through the normal path, which completes this generation
+            inFlight.cancel();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.beagleflipper.controller;
+
+import com.beagleflipper.model.Transaction;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Append only log of the transactions that haven't been acked by the server yet. Adding a transaction
+ * appends it as a json line and an ack appends an {"ack": id} line, so nothing is rewritten on the game
+ * tick. Lines are buffered in memory and written + fsynced by the executor, so any appends that arrive
+ * while a write is pending are committed together. Once ack records make up most of the file it is
+ * compacted in the background down to just the live transactions.
+ * <p>
+ * A file written by older versions (transaction lines only) is read as is.
+ */
+@Slf4j
+public class UnAckedTransactionLog {
+
+    static final int MIN_COMPACTION_RECORDS = 256;
+    private static final String ACK_KEY = "ack";
+
+    private final File file;
+    private final Gson gson;
+    private final Executor executor;
+
+    // guarded by this, only touched in memory so callers never wait on the disk
+    private final LinkedHashMap<String, Transaction> live = new LinkedHashMap<>();
+    private StringBuilder pending = new StringBuilder();
+    private boolean flushScheduled = false;
+    private boolean compactionScheduled = false;
+    private int records = 0;
+
+    // guarded by ioLock
+    private final Object ioLock = new Object();
+    private FileChannel channel;
+    private boolean closed = false;
+
+    public UnAckedTransactionLog(File file, Gson gson, Executor executor) {
+        this.file = file;
+        this.gson = gson;
+        this.executor = executor;
+    }
+
+    /**
+     * Replays the log, returning the transactions that are still un-acked in the order they were added.
+     * A torn last line, left by a write that was interrupted, is cut off the file.
+     */
+    public List<Transaction> load() {
+        synchronized (ioLock) {
+            synchronized (this) {
+                live.clear();
+                records = 0;
+                if (!file.exists()) {
+                    log.info("no existing un acked transactions file {}", file);
+                    return new ArrayList<>();
+                }
+                byte[] bytes;
+                try {
+                    bytes = Files.readAllBytes(file.toPath());
+                } catch (IOException e) {
+                    log.warn("error loading un acked transaction file {}", file, e);
+                    return new ArrayList<>();
+                }
+
+                int lineStart = 0;
+                for (int i = 0; i < bytes.length; i++) {
+                    if (bytes[i] == '\n') {
+                        replay(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                        lineStart = i + 1;
+                    }
+                }
+                if (lineStart < bytes.length) {
+                    String lastLine = new String(bytes, lineStart, bytes.length - lineStart, StandardCharsets.UTF_8);
+                    log.warn("un acked transaction file {} ends with a torn line, truncating it", file);
+                    truncate(lineStart);
+                    // the line may still be complete, just missing its newline, in which case it is re-appended
+                    if (replay(lastLine)) {
+                        pending.append(lastLine.trim()).append('\n');
+                        scheduleFlush();
+                    }
+                }
+                log.info("loaded {} un acked transactions from {} records in {}", live.size(), records, file);
+                return new ArrayList<>(live.values());
+            }
+        }
+    }
+
+    private boolean replay(String line) {
+        if (line.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            JsonObject obj = gson.fromJson(line, JsonObject.class);
+            if (obj == null) {
+                return false;
+            }
+            records++;
+            if (obj.has(ACK_KEY)) {
+                live.remove(obj.get(ACK_KEY).getAsString());
+            } else {
+                Transaction transaction = gson.fromJson(obj, Transaction.class);
+                live.putIfAbsent(transaction.getId(), transaction);
+            }
+            return true;
+        } catch (JsonSyntaxException | IllegalStateException e) {
+            log.warn("error deserializing transaction line '{}' file {}", line, file, e);
+            return false;
+        }
+    }
+
+    private void truncate(long size) {
+        try (FileChannel c = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            c.truncate(size);
+            c.force(true);
+        } catch (IOException e) {
+            log.warn("error truncating un acked transaction file {}", file, e);
+        }
+    }
+
+    public synchronized void append(Transaction transaction) {
+        if (live.putIfAbsent(transaction.getId(), transaction) != null) {
+            return;
+        }
+        pending.append(gson.toJson(transaction)).append('\n');
+        records++;
+        scheduleFlush();
+    }
+
+    public synchronized void ack(Collection<String> ids) {
+        for (String id : ids) {
+            if (live.remove(id) == null) {
+                continue;
+            }
+            JsonObject ack = new JsonObject();
+            ack.addProperty(ACK_KEY, id);
+            pending.append(ack).append('\n');
+            records++;
+        }
+        scheduleFlush();
+        if (!compactionScheduled && records >= MIN_COMPACTION_RECORDS && records > 2 * live.size()) {
+            compactionScheduled = true;
+            executor.execute(this::compact);
+        }
+    }
+
+    public synchronized int size() {
+        return live.size();
+    }
+
+    synchronized int getRecords() {
+        return records;
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled && pending.length() > 0) {
+            flushScheduled = true;
+            executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Writes and fsyncs everything appended since the last flush in one go.
+     */
+    void flush() {
+        synchronized (ioLock) {
+            if (closed) {
+                return;
+            }
+            String toWrite;
+            synchronized (this) {
+                flushScheduled = false;
+                if (pending.length() == 0) {
+                    return;
+                }
+                toWrite = pending.toString();
+                pending = new StringBuilder();
+            }
+            try {
+                FileChannel c = openChannel();
+                ByteBuffer buffer = ByteBuffer.wrap(toWrite.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    c.write(buffer);
+                }
+                c.force(false);
+            } catch (IOException e) {
+                log.warn("error appending to un acked transaction file {}", file, e);
+                closeChannel();
+                synchronized (this) {
+                    // the lines are retried with the next flush, the leading newline ends any partially
+                    // written line so it is skipped on replay instead of corrupting the first retried line
+                    pending.insert(0, toWrite).insert(0, '\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites the log with only the live transactions. The snapshot and the pending lines are taken
+     * together so the snapshot already covers whatever was pending.
+     */
+    void compact() {
+        synchronized (ioLock) {
+            // a closed log may already have been reopened on the same file, whose appends a rename would lose
+            if (closed) {
+                return;
+            }
+            List<Transaction> snapshot;
+            String dropped;
+            int previousRecords;
+            synchronized (this) {
+                compactionScheduled = false;
+                snapshot = new ArrayList<>(live.values());
+                dropped = pending.toString();
+                pending = new StringBuilder();
+                previousRecords = records;
+                records = snapshot.size();
+            }
+            File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            StringBuilder sb = new StringBuilder();
+            for (Transaction t : snapshot) {
+                sb.append(gson.toJson(t)).append('\n');
+            }
+            try {
+                closeChannel();
+                try (FileChannel c = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        c.write(buffer);
+                    }
+                    c.force(true);
+                }
+                try {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                log.debug("compacted un acked transaction file {} down to {} transactions", file, snapshot.size());
+            } catch (IOException e) {
+                // the old file is untouched, so the lines taken out of pending still have to be appended to it
+                log.warn("error compacting un acked transaction file {}", file, e);
+                synchronized (this) {
+                    pending.insert(0, dropped);
+                    records += previousRecords - snapshot.size();
+                    scheduleFlush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes what is pending and closes the file. Flushes and compactions still queued on the executor
+     * do nothing once the log is closed.
+     */
+    public void close() {
+        synchronized (ioLock) {
+            flush();
+            closed = true;
+            closeChannel();
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("error closing un acked transaction file {}", file, e);
+            }
+            channel = null;
+        }
+    }
+}
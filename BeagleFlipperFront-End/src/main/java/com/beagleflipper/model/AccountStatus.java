@@ -1,18 +1,22 @@
 package com.beagleflipper.model;
 
+import com.beagleflipper.util.MsgPackEncoder;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.annotations.SerializedName;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Data
 @NoArgsConstructor
 public class AccountStatus {
 
     private List<Integer> blockedItems;
+    private String blockedItemsHash;
     private boolean sellOnlyMode;
     private String displayName;
     private Long accountHash;
@@ -44,6 +48,15 @@ public class AccountStatus {
     }
 
     public JsonObject toJson(Gson gson, boolean grandExchangeOpen, boolean isPriceGraphWebsite) {
+        return toJson(gson, grandExchangeOpen, isPriceGraphWebsite, null);
+    }
+
+    /**
+     * Serialises the status, leaving out the inventory, offers and uncollected sections when they are
+     * unchanged from {@code base}, the last snapshot the server acknowledged. The blocked items are
+     * sent as just their hash in that case. With no base the full status is sent.
+     */
+    public JsonObject toJson(Gson gson, boolean grandExchangeOpen, boolean isPriceGraphWebsite, AccountStatus base) {
         JsonObject jsonObject = new JsonObject();
         jsonObject.addProperty("account_hash", this.accountHash);
         jsonObject.addProperty("display_name", this.displayName);
@@ -66,14 +79,78 @@ public class AccountStatus {
         }
         // --- END OF STATE HANDLING FIXES ---
 
-        jsonObject.add("blocked_items", gson.toJsonTree(this.blockedItems));
+        if (base == null || !Objects.equals(this.blockedItemsHash, base.blockedItemsHash)) {
+            jsonObject.add("blocked_items", gson.toJsonTree(this.blockedItems));
+        }
+        jsonObject.addProperty("blocked_items_hash", this.blockedItemsHash);
         jsonObject.addProperty("timeframe", this.timeframe);
         jsonObject.addProperty("is_suggestions_paused", this.isSuggestionsPaused);
-        jsonObject.add("inventory", gson.toJsonTree(this.inventory));
-        jsonObject.add("offers", this.offers != null ? this.offers.toJson(gson) : null);
-        jsonObject.add("uncollected", gson.toJsonTree(this.uncollected));
+        if (base == null || !Objects.equals(this.inventory, base.inventory)) {
+            jsonObject.add("inventory", gson.toJsonTree(this.inventory));
+        }
+        if (base == null || !Objects.equals(this.offers, base.offers)) {
+            jsonObject.add("offers", this.offers != null ? this.offers.toJson(gson) : null);
+        }
+        if (base == null || !Objects.equals(this.uncollected, base.uncollected)) {
+            jsonObject.add("uncollected", gson.toJsonTree(this.uncollected));
+        }
         jsonObject.addProperty("grand_exchange_open", grandExchangeOpen);
         jsonObject.addProperty("is_price_graph_website", isPriceGraphWebsite);
         return jsonObject;
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the same fields as {@link #toJson(Gson, boolean, boolean, AccountStatus)} as msgpack.
+     */
+    public MsgPackEncoder.MapWriter toMsgPack(boolean grandExchangeOpen, boolean isPriceGraphWebsite, AccountStatus base) throws IOException {
+        MsgPackEncoder.MapWriter map = new MsgPackEncoder.MapWriter();
+        map.put("account_hash", this.accountHash);
+        map.put("display_name", this.displayName);
+        map.put("is_member", this.isMember);
+        map.put("preferences", new MsgPackEncoder.MapWriter().put("f2pOnlyMode", this.isF2pOnlyMode));
+        map.put("sell_only_mode", this.sellOnlyMode);
+        map.put("skip_suggestion", this.isSuggestionSkipped);
+        if (this.isSuggestionSkipped && this.itemToSkip > 0) {
+            map.put("item_to_skip", this.itemToSkip);
+            map.put("current_item_id", this.itemToSkip);
+        }
+        if (base == null || !Objects.equals(this.blockedItemsHash, base.blockedItemsHash)) {
+            MsgPackEncoder.writeIntList(map.key("blocked_items"), this.blockedItems);
+        }
+        map.put("blocked_items_hash", this.blockedItemsHash);
+        map.put("timeframe", this.timeframe);
+        map.put("is_suggestions_paused", this.isSuggestionsPaused);
+        if (base == null || !Objects.equals(this.inventory, base.inventory)) {
+            if (this.inventory != null) {
+                this.inventory.writeMsgPack(map.key("inventory"));
+            } else {
+                MsgPackEncoder.writeNil(map.key("inventory"));
+            }
+        }
+        if (base == null || !Objects.equals(this.offers, base.offers)) {
+            if (this.offers != null) {
+                this.offers.writeMsgPack(map.key("offers"));
+            } else {
+                MsgPackEncoder.writeNil(map.key("offers"));
+            }
+        }
+        if (base == null || !Objects.equals(this.uncollected, base.uncollected)) {
+            MsgPackEncoder.writeIdToAmountMap(map.key("uncollected"), this.uncollected);
+        }
+        map.put("grand_exchange_open", grandExchangeOpen);
+        map.put("is_price_graph_website", isPriceGraphWebsite);
+        return map;
+    }
+
+    // 64 bit FNV-1a over the ids, sent as hex since json numbers lose precision past 53 bits
+    static String hashBlockedItems(List<Integer> blockedItems) {
+        long hash = 0xcbf29ce484222325L;
+        if (blockedItems != null) {
+            for (Integer id : blockedItems) {
+                hash ^= id == null ? 0 : id;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return Long.toHexString(hash);
+    }
+}
@@ -1,13 +1,21 @@
 package com.beagleflipper.model;
 
+import com.beagleflipper.util.MsgPackEncoder;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @Singleton
@@ -20,23 +28,62 @@ public class AccountStatusManager {
     private final SuggestionPreferencesManager suggestionPreferencesManager;
     private final PausedManager pausedManager;
 
+    private static final int MAX_UNACKED_SNAPSHOTS = 8;
+
     @Setter
     private int skipSuggestion = -1;
 
+    // the inventory and offers are only rebuilt once the runelite events tell us they changed
+    private boolean inventoryDirty = true;
+    private boolean offersDirty = true;
+    private Inventory cachedInventory;
+    private StatusOfferList cachedOffers;
+    private int cachedBlockedItemsVersion = -1;
+    private List<Integer> cachedBlockedItems;
+    private String cachedBlockedItemsHash;
+
+    // status snapshots we sent to the server, by version, until it acknowledges one of them. Once the
+    // server has acknowledged a snapshot we only send the sections that differ from it
+    private long statusVersion = 0;
+    private final Map<Long, AccountStatus> sentSnapshots = new LinkedHashMap<>();
+    private long ackedVersion = -1;
+    private AccountStatus ackedSnapshot;
+
+    public synchronized void onInventoryChanged() {
+        inventoryDirty = true;
+    }
+
+    public synchronized void onOffersChanged() {
+        offersDirty = true;
+    }
+
     public synchronized AccountStatus getAccountStatus() {
         Long accountHash = osrsLoginManager.getAccountHash();
-        // FIX: Use InventoryID.INVENTORY.getId() to get the container ID
-        ItemContainer itemContainer = client.getItemContainer(InventoryID.INVENTORY);
+        boolean justCleared = geUncollected.getLastClearedTick() == client.getTickCount();
 
-        if (itemContainer == null) {
-            log.warn("unable to fetch inventory item container");
-            return null;
+        Inventory inventory = cachedInventory;
+        if (inventoryDirty || inventory == null || justCleared) {
+            // FIX: Use InventoryID.INVENTORY.getId() to get the container ID
+            ItemContainer itemContainer = client.getItemContainer(InventoryID.INVENTORY);
+
+            if (itemContainer == null) {
+                log.warn("unable to fetch inventory item container");
+                return null;
+            }
+            inventory = Inventory.fromRunelite(itemContainer, client);
+            cachedInventory = inventory;
+            // the just collected items get merged into this inventory below, so it can't be reused next time
+            inventoryDirty = justCleared;
         }
-        Inventory inventory = Inventory.fromRunelite(itemContainer, client);
         Map<Integer, Long> u = geUncollected.loadAllUncollected(accountHash);
 
         GrandExchangeOffer[] geOffers = client.getGrandExchangeOffers();
-        StatusOfferList offerList = StatusOfferList.fromRunelite(geOffers);
+        StatusOfferList offerList = cachedOffers;
+        if (offersDirty || offerList == null || justCleared) {
+            offerList = StatusOfferList.fromRunelite(geOffers);
+            cachedOffers = offerList;
+            offersDirty = justCleared;
+        }
 
         AccountStatus status = new AccountStatus();
         status.setOffers(offerList);
@@ -49,13 +96,15 @@ public class AccountStatusManager {
         status.setF2pOnlyMode(suggestionPreferencesManager.getPreferences().isF2pOnlyMode());
         status.setMember(osrsLoginManager.isMembersWorld());
         status.setSuggestionsPaused(pausedManager.isPaused());
-        status.setBlockedItems(suggestionPreferencesManager.blockedItems());
+        updateCachedBlockedItems();
+        status.setBlockedItems(cachedBlockedItems);
+        status.setBlockedItemsHash(cachedBlockedItemsHash);
         status.setTimeframe(suggestionPreferencesManager.getTimeframe());
 
         // This logic appears correct from your upload
         Map<Integer, Long> inLimboItems = geUncollected.getLastClearedUncollected();
         List<Integer> clearedSlots = geUncollected.getLastClearedSlots();
-        if (geUncollected.getLastClearedTick() == client.getTickCount()) {
+        if (justCleared) {
             if (inventory.missingJustCollected(inLimboItems)) {
                 inLimboItems.forEach((itemId, qty) -> {
                     if (qty > 0) {
@@ -75,6 +124,90 @@ public class AccountStatusManager {
         return status;
     }
 
+    private void updateCachedBlockedItems() {
+        int version = suggestionPreferencesManager.getBlockedItemsVersion();
+        if (version == cachedBlockedItemsVersion && cachedBlockedItems != null) {
+            return;
+        }
+        List<Integer> blocked = suggestionPreferencesManager.blockedItems();
+        // copied so that a snapshot we sent keeps the list as it was at the time
+        cachedBlockedItems = blocked == null ? new ArrayList<>() : new ArrayList<>(blocked);
+        cachedBlockedItemsHash = AccountStatus.hashBlockedItems(cachedBlockedItems);
+        cachedBlockedItemsVersion = version;
+    }
+
+    /**
+     * Serialises the status for a suggestion request. If the server has acknowledged an earlier snapshot
+     * the request is a patch against it, otherwise the full status is sent.
+     */
+    public synchronized JsonObject toRequestJson(AccountStatus status, Gson gson, boolean grandExchangeOpen, boolean isPriceGraphWebsite) {
+        AccountStatus base = patchBase(status);
+        long version = recordSent(status);
+        JsonObject json = status.toJson(gson, grandExchangeOpen, isPriceGraphWebsite, base);
+        json.addProperty("status_version", version);
+        if (base != null) {
+            json.addProperty("base_version", ackedVersion);
+        }
+        return json;
+    }
+
+    /**
+     * The msgpack equivalent of {@link #toRequestJson}. The returned map is left open so the caller can
+     * add further request fields before writing it out.
+     */
+    public synchronized MsgPackEncoder.MapWriter toRequestMsgPack(AccountStatus status, boolean grandExchangeOpen, boolean isPriceGraphWebsite) throws IOException {
+        AccountStatus base = patchBase(status);
+        long version = recordSent(status);
+        MsgPackEncoder.MapWriter map = status.toMsgPack(grandExchangeOpen, isPriceGraphWebsite, base);
+        map.put("status_version", version);
+        if (base != null) {
+            map.put("base_version", ackedVersion);
+        }
+        return map;
+    }
+
+    private AccountStatus patchBase(AccountStatus status) {
+        AccountStatus base = ackedSnapshot;
+        if (base != null && !Objects.equals(base.getAccountHash(), status.getAccountHash())) {
+            return null;
+        }
+        return base;
+    }
+
+    private long recordSent(AccountStatus status) {
+        long version = ++statusVersion;
+        sentSnapshots.put(version, status);
+        if (sentSnapshots.size() > MAX_UNACKED_SNAPSHOTS) {
+            Iterator<Long> it = sentSnapshots.keySet().iterator();
+            it.next();
+            it.remove();
+        }
+        return version;
+    }
+
+    /**
+     * Called when the server tells us which status version it has stored.
+     */
+    public synchronized void onStatusAcked(long version) {
+        AccountStatus snapshot = sentSnapshots.get(version);
+        if (snapshot == null) {
+            return;
+        }
+        ackedVersion = version;
+        ackedSnapshot = snapshot;
+        sentSnapshots.keySet().removeIf(v -> v <= version);
+    }
+
+    /**
+     * Forgets the acknowledged snapshot so the next request carries the full status. Used whenever we
+     * can't be sure the server still holds it.
+     */
+    public synchronized void resetAckedStatus() {
+        ackedVersion = -1;
+        ackedSnapshot = null;
+        sentSnapshots.clear();
+    }
+
     private boolean isActive(GrandExchangeOfferState state) {
         switch (state) {
             case EMPTY:
@@ -96,7 +229,19 @@ public class AccountStatusManager {
         skipSuggestion = -1;
     }
 
-    public void reset() {
+    public synchronized void reset() {
         skipSuggestion = -1;
+        invalidate();
+    }
+
+    /**
+     * Drops everything cached about the account, used when the game connection changes.
+     */
+    public synchronized void invalidate() {
+        inventoryDirty = true;
+        offersDirty = true;
+        cachedInventory = null;
+        cachedOffers = null;
+        resetAckedStatus();
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.beagleflipper.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running totals of the flip history per account by item, by hour of day and by weekday. They are updated
+ * as each flip is merged (and taken back out when a flip is replaced), so the breakdowns never need a pass
+ * over the history. Not thread safe, the {@link FlipManager} lock guards it.
+ */
+class FlipAnalytics {
+
+    private final ZoneId zone;
+    private final Map<Integer, Rollups> accountIdToRollups = new HashMap<>();
+
+    FlipAnalytics(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    private static class Rollups {
+        final Map<Integer, ItemStats> items = new HashMap<>();
+        final Stats[] byHour = newStats(24);
+        final Stats[] byWeekday = newStats(7);
+    }
+
+    void addFlip(FlipV2 f) {
+        Rollups r = accountIdToRollups.computeIfAbsent(f.getAccountId(), (k) -> new Rollups());
+        ItemStats item = r.items.computeIfAbsent(f.getItemId(), ItemStats::new);
+        if (f.getItemName() != null) {
+            item.itemName = f.getItemName();
+        }
+        item.stats.addFlip(f);
+        if (isHeld(f)) {
+            item.holdSeconds += f.getClosedTime() - f.getOpenedTime();
+            item.heldFlips++;
+        }
+        int time = bucketTime(f);
+        if (time > 0) {
+            LocalDateTime t = localTime(time);
+            r.byHour[t.getHour()].addFlip(f);
+            r.byWeekday[t.getDayOfWeek().ordinal()].addFlip(f);
+        }
+    }
+
+    void subtractFlip(FlipV2 f) {
+        Rollups r = accountIdToRollups.get(f.getAccountId());
+        ItemStats item = r.items.get(f.getItemId());
+        item.stats.subtractFlip(f);
+        if (isHeld(f)) {
+            item.holdSeconds -= f.getClosedTime() - f.getOpenedTime();
+            item.heldFlips--;
+        }
+        if (item.stats.flipsMade == 0) {
+            r.items.remove(f.getItemId());
+        }
+        int time = bucketTime(f);
+        if (time > 0) {
+            LocalDateTime t = localTime(time);
+            r.byHour[t.getHour()].subtractFlip(f);
+            r.byWeekday[t.getDayOfWeek().ordinal()].subtractFlip(f);
+        }
+    }
+
+    /**
+     * Per item stats of one account, or summed over all accounts if the account is null, most profitable first.
+     */
+    List<ItemStats> itemStats(Integer accountId) {
+        Map<Integer, ItemStats> items = new HashMap<>();
+        for (Map.Entry<Integer, Rollups> e : accountIdToRollups.entrySet()) {
+            if (accountId == null || accountId.equals(e.getKey())) {
+                e.getValue().items.forEach((itemId, s) -> items.computeIfAbsent(itemId, ItemStats::new).add(s));
+            }
+        }
+        List<ItemStats> sorted = new ArrayList<>(items.values());
+        sorted.sort(Comparator.comparingLong((ItemStats s) -> s.stats.profit).reversed());
+        return sorted;
+    }
+
+    /**
+     * Stats by the local hour of day the flips closed in, index 0 is midnight.
+     */
+    Stats[] hourOfDayStats(Integer accountId) {
+        Stats[] stats = newStats(24);
+        accountIdToRollups.forEach((id, r) -> {
+            if (accountId == null || accountId.equals(id)) {
+                addAll(stats, r.byHour);
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Stats by the local weekday the flips closed on, index 0 is Monday.
+     */
+    Stats[] weekdayStats(Integer accountId) {
+        Stats[] stats = newStats(7);
+        accountIdToRollups.forEach((id, r) -> {
+            if (accountId == null || accountId.equals(id)) {
+                addAll(stats, r.byWeekday);
+            }
+        });
+        return stats;
+    }
+
+    void clear() {
+        accountIdToRollups.clear();
+    }
+
+    private static boolean isHeld(FlipV2 f) {
+        return f.isClosed() && f.getOpenedTime() > 0 && f.getClosedTime() >= f.getOpenedTime();
+    }
+
+    // flips that haven't sold anything yet have no closed time, they count at the time they were opened
+    private static int bucketTime(FlipV2 f) {
+        return f.getClosedTime() > 0 ? f.getClosedTime() : f.getOpenedTime();
+    }
+
+    private LocalDateTime localTime(int epochSeconds) {
+        Instant instant = Instant.ofEpochSecond(epochSeconds);
+        return LocalDateTime.ofEpochSecond(epochSeconds, 0, zone.getRules().getOffset(instant));
+    }
+
+    private static Stats[] newStats(int n) {
+        Stats[] stats = new Stats[n];
+        for (int i = 0; i < n; i++) {
+            stats[i] = new Stats();
+        }
+        return stats;
+    }
+
+    private static void addAll(Stats[] into, Stats[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i].add(from[i]);
+        }
+    }
+}
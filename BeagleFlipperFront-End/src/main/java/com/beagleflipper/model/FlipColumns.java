@@ -0,0 +1,178 @@
+package com.beagleflipper.model;
+
+import java.util.Arrays;
+
+/**
+ * The flips of one account in one week, stored column wise in primitive arrays sorted by closed time
+ * (ties broken by descending id, the order the flip list has always used). Ids, item names and display
+ * names are held as codes into shared dictionaries. {@link FlipV2} objects are only created for the rows
+ * that are actually read.
+ */
+class FlipColumns {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final int accountId;
+    private final StringDictionary ids;
+    private final StringDictionary names;
+
+    private int size = 0;
+    private int[] idCode = new int[INITIAL_CAPACITY];
+    private int[] itemId = new int[INITIAL_CAPACITY];
+    private int[] itemNameCode = new int[INITIAL_CAPACITY];
+    private int[] displayNameCode = new int[INITIAL_CAPACITY];
+    private int[] openedTime = new int[INITIAL_CAPACITY];
+    private int[] openedQuantity = new int[INITIAL_CAPACITY];
+    private int[] closedTime = new int[INITIAL_CAPACITY];
+    private int[] closedQuantity = new int[INITIAL_CAPACITY];
+    private long[] spent = new long[INITIAL_CAPACITY];
+    private long[] receivedPostTax = new long[INITIAL_CAPACITY];
+    private long[] profit = new long[INITIAL_CAPACITY];
+    private long[] taxPaid = new long[INITIAL_CAPACITY];
+    private boolean[] closed = new boolean[INITIAL_CAPACITY];
+
+    FlipColumns(int accountId, StringDictionary ids, StringDictionary names) {
+        this.accountId = accountId;
+        this.ids = ids;
+        this.names = names;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int closedTime(int row) {
+        return closedTime[row];
+    }
+
+    String id(int row) {
+        return ids.get(idCode[row]);
+    }
+
+    /**
+     * Materialises the row as a new {@link FlipV2}.
+     */
+    FlipV2 get(int row) {
+        FlipV2 f = new FlipV2();
+        f.setId(ids.get(idCode[row]));
+        f.setAccountId(accountId);
+        f.setItemId(itemId[row]);
+        f.setItemName(names.get(itemNameCode[row]));
+        f.setOpenedTime(openedTime[row]);
+        f.setOpenedQuantity(openedQuantity[row]);
+        f.setSpent(spent[row]);
+        f.setClosedTime(closedTime[row]);
+        f.setClosedQuantity(closedQuantity[row]);
+        f.setReceivedPostTax(receivedPostTax[row]);
+        f.setProfit(profit[row]);
+        f.setTaxPaid(taxPaid[row]);
+        f.setClosed(closed[row]);
+        f.setAccountDisplayName(names.get(displayNameCode[row]));
+        return f;
+    }
+
+    void insert(FlipV2 f) {
+        int row = -bisect(f.getId(), f.getClosedTime()) - 1;
+        ensureCapacity(size + 1);
+        shift(row, row + 1, size - row);
+        idCode[row] = ids.intern(f.getId());
+        itemId[row] = f.getItemId();
+        itemNameCode[row] = names.intern(f.getItemName());
+        displayNameCode[row] = names.intern(f.getAccountDisplayName());
+        openedTime[row] = f.getOpenedTime();
+        openedQuantity[row] = f.getOpenedQuantity();
+        closedTime[row] = f.getClosedTime();
+        closedQuantity[row] = f.getClosedQuantity();
+        spent[row] = f.getSpent();
+        receivedPostTax[row] = f.getReceivedPostTax();
+        profit[row] = f.getProfit();
+        taxPaid[row] = f.getTaxPaid();
+        closed[row] = f.isClosed();
+        size++;
+    }
+
+    /**
+     * Removes the row with the given id and closed time, returning it as a {@link FlipV2}.
+     */
+    FlipV2 remove(String id, int time) {
+        int row = bisect(id, time);
+        FlipV2 removed = get(row);
+        shift(row + 1, row, size - row - 1);
+        size--;
+        return removed;
+    }
+
+    /**
+     * The first row closed at or after the given time.
+     */
+    int firstRowAtOrAfter(int time) {
+        return -bisect("\uFFFF", time) - 1;
+    }
+
+    void addStats(int fromRow, Stats stats) {
+        for (int row = fromRow; row < size; row++) {
+            stats.profit += profit[row];
+            stats.gross += spent[row];
+            stats.taxPaid += taxPaid[row];
+        }
+        stats.flipsMade += Math.max(0, size - fromRow);
+    }
+
+    private int bisect(String id, int time) {
+        int high = size - 1;
+        int low = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Integer.compare(closedTime[mid], time);
+            if (cmp == 0) {
+                cmp = id.compareTo(ids.get(idCode[mid]));
+            }
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    private void shift(int from, int to, int length) {
+        if (length <= 0) {
+            return;
+        }
+        System.arraycopy(idCode, from, idCode, to, length);
+        System.arraycopy(itemId, from, itemId, to, length);
+        System.arraycopy(itemNameCode, from, itemNameCode, to, length);
+        System.arraycopy(displayNameCode, from, displayNameCode, to, length);
+        System.arraycopy(openedTime, from, openedTime, to, length);
+        System.arraycopy(openedQuantity, from, openedQuantity, to, length);
+        System.arraycopy(closedTime, from, closedTime, to, length);
+        System.arraycopy(closedQuantity, from, closedQuantity, to, length);
+        System.arraycopy(spent, from, spent, to, length);
+        System.arraycopy(receivedPostTax, from, receivedPostTax, to, length);
+        System.arraycopy(profit, from, profit, to, length);
+        System.arraycopy(taxPaid, from, taxPaid, to, length);
+        System.arraycopy(closed, from, closed, to, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= idCode.length) {
+            return;
+        }
+        int n = Math.max(capacity, idCode.length + (idCode.length >> 1));
+        idCode = Arrays.copyOf(idCode, n);
+        itemId = Arrays.copyOf(itemId, n);
+        itemNameCode = Arrays.copyOf(itemNameCode, n);
+        displayNameCode = Arrays.copyOf(displayNameCode, n);
+        openedTime = Arrays.copyOf(openedTime, n);
+        openedQuantity = Arrays.copyOf(openedQuantity, n);
+        closedTime = Arrays.copyOf(closedTime, n);
+        closedQuantity = Arrays.copyOf(closedQuantity, n);
+        spent = Arrays.copyOf(spent, n);
+        receivedPostTax = Arrays.copyOf(receivedPostTax, n);
+        profit = Arrays.copyOf(profit, n);
+        taxPaid = Arrays.copyOf(taxPaid, n);
+        closed = Arrays.copyOf(closed, n);
+    }
+}
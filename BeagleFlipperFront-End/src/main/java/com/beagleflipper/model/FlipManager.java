@@ -1,6 +1,7 @@
 package com.beagleflipper.model;
 
 import com.beagleflipper.controller.ApiRequestHandler;
+import com.beagleflipper.controller.FlipCacheFile;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -9,10 +10,12 @@ import okhttp3.OkHttpClient;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.time.Instant;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -21,12 +24,21 @@ import java.util.stream.Collectors;
 public class FlipManager {
 
     private static final int WEEK_SECS = 7 * 24 * 60 * 60;
+    // the server is asked for a bit more than strictly needed in case its clock is ahead of ours
+    private static final int SYNC_MARGIN_SECS = 10 * 60;
+    private static final int FLIP_CACHE_SAVE_DELAY_SECS = 30;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final long LOAD_PROGRESS_INTERVAL_MS = 250;
 
     private final ApiRequestHandler api;
     private final ScheduledExecutorService executorService;
     private final OkHttpClient okHttpClient;
     private final OsrsLoginManager osrsLoginManager;
 
+    // queries (stats, pages) share the read lock, merges and interval changes take the write lock. Merging
+    // the flip history takes it one batch at a time so queries are never held up by a whole load.
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
     @Setter
     private Runnable flipsChangedCallback = () -> {};
 
@@ -36,26 +48,64 @@ public class FlipManager {
 
     final Map<String, Integer> displayNameToAccountId = new HashMap<>();
     final Map<Integer, Map<Integer, FlipV2>> lastOpenFLipByItemId = new HashMap<>();
-    final Map<String, Integer> existingCloseTimes = new HashMap<>();
-    final List<WeekAggregate> weeks = new ArrayList<>(365*5);
+    // indexed by week number (epoch seconds / WEEK_SECS), null for weeks without flips
+    WeekAggregate[] weeks = new WeekAggregate[0];
+    // stats summed per week, for all accounts and per account, so stats over any interval are O(log weeks)
+    private final WeeklyStatsIndex allStatsIndex = new WeeklyStatsIndex();
+    private final Map<Integer, WeeklyStatsIndex> accountIdToStatsIndex = new HashMap<>();
+    // all time breakdowns by item, hour of day and weekday
+    private final FlipAnalytics analytics = new FlipAnalytics(ZoneId.systemDefault());
+
+    // immutable copy of the open flips for the client thread, republished whenever a write changes them
+    private volatile OpenFlips openFlips = new OpenFlips(Collections.emptyMap(), Collections.emptyMap());
+    private boolean openFlipsChanged;
+
+    // flip ids and item/display names are stored as codes into these, see FlipColumns
+    final StringDictionary flipIds = new StringDictionary();
+    final StringDictionary flipNames = new StringDictionary();
+    // the closed time each stored flip is filed under, indexed by the code of its id
+    private int[] closeTimeByIdCode = new int[1024];
 
     private int resetSeq = 0;
     public volatile boolean flipsLoaded;
 
-    public synchronized String getIntervalDisplayName() {
-        return intervalDisplayName;
+    // the display name whose flip cache file the store is saved to, and the time the store is up to date with the server
+    private String syncDisplayName;
+    private Integer syncWatermark;
+    private boolean flipCacheSaveScheduled;
+
+    // number of flips received so far while the flip history is streaming in from the server, -1 when not loading
+    private volatile int historyLoadProgress = -1;
+
+    public String getIntervalDisplayName() {
+        lock.readLock().lock();
+        try {
+            return intervalDisplayName;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized List<String> getDisplayNameOptions() {
-        return displayNameToAccountId.keySet().stream().sorted().collect(Collectors.toList());
+    public List<String> getDisplayNameOptions() {
+        lock.readLock().lock();
+        try {
+            return displayNameToAccountId.keySet().stream().sorted().collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized long estimateTransactionProfit(String displayName, Transaction t) {
-        Integer accountId = displayNameToAccountId.get(displayName);
+    /**
+     * Called on the client thread for every GE offer update so it doesn't lock, it reads the last published
+     * copy of the open flips instead.
+     */
+    public long estimateTransactionProfit(String displayName, Transaction t) {
+        OpenFlips snapshot = openFlips;
+        Integer accountId = snapshot.displayNameToAccountId.get(displayName);
         if (accountId == null) {
             return 0;
         }
-        Map<Integer, FlipV2> openFlips = lastOpenFLipByItemId.get(accountId);
+        Map<Integer, FlipV2> openFlips = snapshot.accountIdToOpenFlips.get(accountId);
         if (openFlips == null) {
             return 0;
         }
@@ -68,44 +118,87 @@ public class FlipManager {
     }
 
 
-    public synchronized void mergeFlips(List<FlipV2> flips, String displayName) {
+    public void mergeFlips(List<FlipV2> flips, String displayName) {
+        lock.writeLock().lock();
+        try {
+            mergeFlipsWithoutCallback(flips, displayName);
+        } finally {
+            unlockWrite();
+        }
+        flipsChangedCallback.run();
+    }
+
+    private void mergeFlipsWithoutCallback(List<FlipV2> flips, String displayName) {
         if(!flips.isEmpty() && displayName != null) {
             displayNameToAccountId.put(displayName, flips.get(0).getAccountId());
+            openFlipsChanged = true;
         }
         flips.forEach(this::mergeFlip_);
-        flipsChangedCallback.run();
+        if (!flips.isEmpty()) {
+            scheduleFlipCacheSave();
+        }
     }
 
-    public synchronized Stats getIntervalStats() {
-        return intervalStats.copy();
+    /**
+     * The number of flips received so far while the flip history is loading, or -1 if it isn't loading.
+     */
+    public int getHistoryLoadProgress() {
+        return historyLoadProgress;
     }
 
-    public synchronized Stats calculateStats(int startTime, String displayName) {
-        if(displayName == null) {
-            return calculateStatsAllAccounts(startTime);
-        } else {
-            return calculateStatsForAccount(startTime, displayNameToAccountId.getOrDefault(displayName, -1));
+    public Stats getIntervalStats() {
+        lock.readLock().lock();
+        try {
+            return intervalStats.copy();
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
-    public synchronized void setIntervalDisplayName(String displayName) {
-        if (Objects.equals(displayName, intervalDisplayName)) {
-            return;
+    public Stats calculateStats(int startTime, String displayName) {
+        lock.readLock().lock();
+        try {
+            if(displayName == null) {
+                return calculateStatsAllAccounts(startTime);
+            } else {
+                return calculateStatsForAccount(startTime, displayNameToAccountId.getOrDefault(displayName, -1));
+            }
+        } finally {
+            lock.readLock().unlock();
         }
-        if (displayName != null && !displayNameToAccountId.containsKey(displayName)) {
-            displayNameToAccountId.put(displayName, -1);
+    }
+
+    public void setIntervalDisplayName(String displayName) {
+        lock.writeLock().lock();
+        try {
+            if (Objects.equals(displayName, intervalDisplayName)) {
+                return;
+            }
+            if (displayName != null && !displayNameToAccountId.containsKey(displayName)) {
+                displayNameToAccountId.put(displayName, -1);
+                openFlipsChanged = true;
+            }
+            intervalDisplayName = displayName;
+            recalculateIntervalStats();
+        } finally {
+            unlockWrite();
         }
-        intervalDisplayName = displayName;
-        recalculateIntervalStats();
+        flipsChangedCallback.run();
     }
 
-    public synchronized void setIntervalStartTime(int startTime) {
+    public void setIntervalStartTime(int startTime) {
         log.debug("time interval start set to: {}", Instant.ofEpochSecond(startTime));
-        if (startTime == intervalStartTime) {
-            return;
+        lock.writeLock().lock();
+        try {
+            if (startTime == intervalStartTime) {
+                return;
+            }
+            intervalStartTime = startTime;
+            recalculateIntervalStats();
+        } finally {
+            unlockWrite();
         }
-        intervalStartTime = startTime;
-        recalculateIntervalStats();
+        flipsChangedCallback.run();
     }
 
     private void recalculateIntervalStats() {
@@ -115,55 +208,101 @@ public class FlipManager {
             intervalStats = calculateStatsForAccount(intervalStartTime, displayNameToAccountId.getOrDefault(intervalDisplayName, -1));
         }
         log.debug("interval flips updated to {}, interval profit updated to {}", intervalStats.flipsMade, intervalStats.profit);
-        flipsChangedCallback.run();
     }
 
     private Stats calculateStatsAllAccounts(int startTime) {
-        Stats stats = new Stats();
-        WeekAggregate w = getOrInitWeek(startTime);
-        for (FlipV2 f : w.flipsAfter(startTime, false)) {
-            stats.addFlip(f);
-        }
-        for(int i=w.pos+1; i < weeks.size(); i++) {
-            stats.add(weeks.get(i).allStats);
+        int week = weekNumber(startTime);
+        Stats stats = allStatsIndex.sumFrom(week + 1);
+        WeekAggregate w = weekAt(week);
+        if (w != null) {
+            w.addStatsAfter(startTime, null, stats);
         }
         return stats;
     }
 
     private Stats calculateStatsForAccount(int startTime, int accountId) {
-        Stats stats = new Stats();
-        WeekAggregate w = getOrInitWeek(startTime);
-        for (FlipV2 f : w.flipsAfterForAccount(startTime, accountId)) {
-            stats.addFlip(f);
+        WeeklyStatsIndex index = accountIdToStatsIndex.get(accountId);
+        if (index == null) {
+            return new Stats();
         }
-        for(int i=w.pos+1; i < weeks.size(); i++) {
-            stats.add(weeks.get(i).accountIdToStats.get(accountId));
+        int week = weekNumber(startTime);
+        Stats stats = index.sumFrom(week + 1);
+        WeekAggregate w = weekAt(week);
+        if (w != null) {
+            w.addStatsAfter(startTime, accountId, stats);
         }
         return stats;
     }
 
-    public synchronized List<FlipV2> getPageFlips(int page, int pageSize) {
+    /**
+     * All time stats per item for the account, or for all accounts if the display name is null, most
+     * profitable first.
+     */
+    public List<ItemStats> getItemStats(String displayName) {
+        lock.readLock().lock();
+        try {
+            return analytics.itemStats(accountIdOf(displayName));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All time stats by the local hour of day flips closed in, index 0 being midnight.
+     */
+    public Stats[] getHourOfDayStats(String displayName) {
+        lock.readLock().lock();
+        try {
+            return analytics.hourOfDayStats(accountIdOf(displayName));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All time stats by the local weekday flips closed on, index 0 being Monday.
+     */
+    public Stats[] getWeekdayStats(String displayName) {
+        lock.readLock().lock();
+        try {
+            return analytics.weekdayStats(accountIdOf(displayName));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Integer accountIdOf(String displayName) {
+        return displayName == null ? null : displayNameToAccountId.getOrDefault(displayName, -1);
+    }
+
+    public List<FlipV2> getPageFlips(int page, int pageSize) {
+        lock.readLock().lock();
+        try {
+            return getPageFlips_(page, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<FlipV2> getPageFlips_(int page, int pageSize) {
         Integer accountId = intervalDisplayName == null ? null : displayNameToAccountId.getOrDefault(intervalDisplayName, -1);
         if (Objects.equals(accountId,-1)) {
             return new ArrayList<>();
         }
 
         int toSkip = (page -1) * pageSize;
-        WeekAggregate intervalWeek = getOrInitWeek(intervalStartTime);
         List<FlipV2> resultFlips = new ArrayList<>(pageSize);
-        for(int i=weeks.size()-1; i >= intervalWeek.pos; i--) {
-            if (weeks.get(i).weekEnd <= intervalStartTime || resultFlips.size() == pageSize) {
+        for(int i=weeks.length-1; i >= weekNumber(intervalStartTime); i--) {
+            WeekAggregate w = weeks[i];
+            if (w == null) {
+                continue;
+            }
+            if (w.weekEnd <= intervalStartTime || resultFlips.size() == pageSize) {
                 break;
             }
-            WeekAggregate w = weeks.get(i);
-            List<FlipV2> weekFlips = accountId == null ? w.flipsAfter(intervalStartTime, true) : w.flipsAfterForAccount(intervalStartTime, accountId);
-            int n = weekFlips.size();
+            int n = w.countAfter(intervalStartTime, accountId);
             if (n > toSkip) {
-                int end = n - toSkip;
-                int start = Math.max(0, end - (pageSize - resultFlips.size()));
-                for(int ii=end-1; ii >= start; ii--) {
-                    resultFlips.add(weekFlips.get(ii));
-                }
+                w.addFlipsDescending(intervalStartTime, accountId, toSkip, pageSize - resultFlips.size(), resultFlips);
                 toSkip = 0;
             } else {
                 toSkip -= n;
@@ -185,30 +324,69 @@ public class FlipManager {
 
         okHttpClient.dispatcher().executorService().submit(() -> {
             try {
+                Integer since;
+                lock.readLock().lock();
+                try {
+                    since = syncWatermark;
+                } finally {
+                    lock.readLock().unlock();
+                }
+                if (since == null) {
+                    since = loadFlipCache(seq, currentDisplayName);
+                }
                 long s = System.nanoTime();
                 Map<String, Integer> names = api.loadUserDisplayNames(currentDisplayName);
-                synchronized (this) {
+                lock.writeLock().lock();
+                try {
                     if (seq != resetSeq) {
                         return;
                     }
                     displayNameToAccountId.putAll(names);
+                    openFlipsChanged = true;
+                } finally {
+                    unlockWrite();
                 }
                 log.debug("loading account names took {}ms", (System.nanoTime() - s) / 1000_000);
                 s = System.nanoTime();
-                List<FlipV2> flips = api.LoadFlips(currentDisplayName);
-                log.debug("loading {} flips took {}ms", flips.size(), (System.nanoTime() - s) / 1000_000);
-                s = System.nanoTime();
-                synchronized (this) {
+                int requestTime = (int) Instant.now().getEpochSecond() - SYNC_MARGIN_SECS;
+                historyLoadProgress = 0;
+                long[] lastProgressUpdate = {System.currentTimeMillis()};
+                // the flips are merged as they arrive, a batch at a time, rather than after the whole list has been read
+                int n = api.streamFlips(currentDisplayName, since, LOAD_BATCH_SIZE, (batch) -> {
+                    lock.writeLock().lock();
+                    try {
+                        if (seq != resetSeq) {
+                            throw new CancellationException("flip data was reset while loading");
+                        }
+                        mergeFlipsWithoutCallback(batch, historyLoadProgress == 0 ? currentDisplayName : null);
+                        historyLoadProgress += batch.size();
+                    } finally {
+                        unlockWrite();
+                    }
+                    long now = System.currentTimeMillis();
+                    if (now - lastProgressUpdate[0] >= LOAD_PROGRESS_INTERVAL_MS) {
+                        lastProgressUpdate[0] = now;
+                        flipsChangedCallback.run();
+                    }
+                });
+                log.debug("loading and merging {} flips changed since {} took {}ms", n, since, (System.nanoTime() - s) / 1000_000);
+                lock.writeLock().lock();
+                try {
                     if (seq != resetSeq) {
                         return;
                     }
-                    mergeFlips(flips, currentDisplayName);
-                    log.debug("merging flips took {}ms", (System.nanoTime() - s) / 1000_000);
+                    syncDisplayName = currentDisplayName;
+                    syncWatermark = requestTime;
                     flipsLoaded = true;
+                    historyLoadProgress = -1;
+                    scheduleFlipCacheSave();
+                } finally {
+                    unlockWrite();
                 }
                 flipsChangedCallback.run();
             }
             catch (Exception e) {
+                historyLoadProgress = -1;
                 if (this.resetSeq == seq) {
                     log.warn("failed to load historical flips from server {}. Retrying in 10s. Stack: {}", e.getMessage(), e);
                     executorService.schedule(() -> this.loadFlips(seq), 10, TimeUnit.SECONDS);
@@ -217,21 +395,127 @@ public class FlipManager {
         });
     }
 
+    /**
+     * Merges the locally cached flips, if there are any, and returns the time they were last synced with
+     * the server. Returns null if all flips have to be loaded from the server.
+     */
+    private Integer loadFlipCache(int seq, String displayName) {
+        long s = System.nanoTime();
+        FlipCacheFile.Snapshot cached = FlipCacheFile.load(displayName);
+        if (cached == null) {
+            return null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (seq != resetSeq) {
+                return null;
+            }
+            cached.getDisplayNameToAccountId().forEach(displayNameToAccountId::putIfAbsent);
+            openFlipsChanged = true;
+            syncDisplayName = displayName;
+            syncWatermark = cached.getWatermark();
+        } finally {
+            unlockWrite();
+        }
+        // merged in batches like the server load so the lock isn't held for the whole cache
+        List<FlipV2> flips = cached.getFlips();
+        for (int i = 0; i < flips.size(); i += LOAD_BATCH_SIZE) {
+            lock.writeLock().lock();
+            try {
+                if (seq != resetSeq) {
+                    return null;
+                }
+                mergeFlipsWithoutCallback(flips.subList(i, Math.min(flips.size(), i + LOAD_BATCH_SIZE)), null);
+            } finally {
+                unlockWrite();
+            }
+        }
+        flipsLoaded = true;
+        log.debug("loading {} cached flips took {}ms", cached.getFlips().size(), (System.nanoTime() - s) / 1000_000);
+        flipsChangedCallback.run();
+        return cached.getWatermark();
+    }
+
+    private void scheduleFlipCacheSave() {
+        // nothing is saved until the store has been synced (or loaded from the cache), so a saved cache always
+        // has a watermark matching its content
+        if (flipCacheSaveScheduled || syncWatermark == null) {
+            return;
+        }
+        flipCacheSaveScheduled = true;
+        int seq = resetSeq;
+        executorService.schedule(() -> saveFlipCache(seq), FLIP_CACHE_SAVE_DELAY_SECS, TimeUnit.SECONDS);
+    }
+
+    private void saveFlipCache(int seq) {
+        FlipCacheFile.Writer writer;
+        String displayName;
+        lock.readLock().lock();
+        try {
+            flipCacheSaveScheduled = false;
+            if (seq != resetSeq || syncWatermark == null) {
+                return;
+            }
+            displayName = syncDisplayName;
+            writer = new FlipCacheFile.Writer(syncWatermark, displayNameToAccountId);
+            for (WeekAggregate w : weeks) {
+                if (w == null) {
+                    continue;
+                }
+                for (FlipColumns flips : w.accountIdToFlips.values()) {
+                    for (int row = 0; row < flips.size(); row++) {
+                        writer.add(flips.get(row));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        writer.store(displayName);
+    }
+
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            intervalDisplayName = null;
+            intervalStartTime = 0;
+            intervalStats = new Stats();
+            displayNameToAccountId.clear();
+            lastOpenFLipByItemId.clear();
+            openFlipsChanged = true;
+            weeks = new WeekAggregate[0];
+            allStatsIndex.clear();
+            accountIdToStatsIndex.clear();
+            analytics.clear();
+            flipIds.clear();
+            flipNames.clear();
+            flipsLoaded = false;
+            syncDisplayName = null;
+            syncWatermark = null;
+            flipCacheSaveScheduled = false;
+            historyLoadProgress = -1;
+            resetSeq += 1;
+        } finally {
+            unlockWrite();
+        }
+    }
 
-    public synchronized void reset() {
-        intervalDisplayName = null;
-        intervalStartTime = 0;
-        intervalStats = new Stats();
-        displayNameToAccountId.clear();
-        lastOpenFLipByItemId.clear();
-        existingCloseTimes.clear();
-        weeks.clear();
-        flipsLoaded = false;
-        resetSeq += 1;
+    /**
+     * Releases the write lock, first publishing a new copy of the open flips if the write changed them.
+     */
+    private void unlockWrite() {
+        if (openFlipsChanged && lock.getWriteHoldCount() == 1) {
+            Map<Integer, Map<Integer, FlipV2>> accountIdToOpenFlips = new HashMap<>();
+            lastOpenFLipByItemId.forEach((accountId, flips) -> accountIdToOpenFlips.put(accountId, new HashMap<>(flips)));
+            openFlips = new OpenFlips(new HashMap<>(displayNameToAccountId), accountIdToOpenFlips);
+            openFlipsChanged = false;
+        }
+        lock.writeLock().unlock();
     }
 
     private void mergeFlip_(FlipV2 flip) {
-        Integer existingCloseTime = existingCloseTimes.get(flip.getId());
+        int idCode = flipIds.find(flip.getId());
+        Integer existingCloseTime = idCode == StringDictionary.NULL_CODE ? null : closeTimeByIdCode[idCode];
 
         Integer intervalAccountId = intervalDisplayName == null ? null : displayNameToAccountId.getOrDefault(intervalDisplayName, -1);
 
@@ -249,107 +533,247 @@ public class FlipManager {
         }
         if(flip.getClosedQuantity() < flip.getOpenedQuantity()) {
             lastOpenFLipByItemId.computeIfAbsent(flip.getAccountId(), (k) -> new HashMap<>()).put(flip.getItemId(), flip);
+            openFlipsChanged = true;
         } else if (flip.isClosed()) {
-            lastOpenFLipByItemId.computeIfAbsent(flip.getAccountId(), (k) -> new HashMap<>()).remove(flip.getItemId());
+            openFlipsChanged |= lastOpenFLipByItemId.computeIfAbsent(flip.getAccountId(), (k) -> new HashMap<>()).remove(flip.getItemId()) != null;
+        }
+        idCode = flipIds.find(flip.getId());
+        if (idCode != StringDictionary.NULL_CODE) {
+            if (idCode >= closeTimeByIdCode.length) {
+                closeTimeByIdCode = Arrays.copyOf(closeTimeByIdCode, Math.max(idCode + 1, closeTimeByIdCode.length * 2));
+            }
+            closeTimeByIdCode[idCode] = flip.getClosedTime();
         }
-        existingCloseTimes.put(flip.getId(), flip.getClosedTime());
+    }
+
+    private static int weekNumber(int time) {
+        return Math.max(0, time / WEEK_SECS);
+    }
+
+    private WeekAggregate weekAt(int week) {
+        return week < weeks.length ? weeks[week] : null;
     }
 
     private WeekAggregate getOrInitWeek(int closeTime) {
-        int ws = closeTime - (closeTime % WEEK_SECS);
-        int i = bisect(weeks.size(), (a) ->  Integer.compare(weeks.get(a).weekStart, ws));
-        if (i >= 0){
-            WeekAggregate w = weeks.get(i);
-            w.pos = i;
-            return w;
+        int week = weekNumber(closeTime);
+        if (week >= weeks.length) {
+            weeks = Arrays.copyOf(weeks, Math.max(week + 1, weeks.length + 52));
+        }
+        WeekAggregate w = weeks[week];
+        if (w == null) {
+            w = new WeekAggregate();
+            w.number = week;
+            w.weekStart = week * WEEK_SECS;
+            w.weekEnd = w.weekStart + WEEK_SECS;
+            weeks[week] = w;
+        }
+        return w;
+    }
+
+    private static class OpenFlips {
+        final Map<String, Integer> displayNameToAccountId;
+        final Map<Integer, Map<Integer, FlipV2>> accountIdToOpenFlips;
+
+        OpenFlips(Map<String, Integer> displayNameToAccountId, Map<Integer, Map<Integer, FlipV2>> accountIdToOpenFlips) {
+            this.displayNameToAccountId = displayNameToAccountId;
+            this.accountIdToOpenFlips = accountIdToOpenFlips;
+        }
+    }
+
+    /**
+     * Reads one account's flips of a week newest first, ties on closed time by descending id. The rows are
+     * stored with ties in descending id order, so each run of equal closed times is read forwards while the
+     * runs themselves are read backwards.
+     */
+    private static class DescendingCursor {
+        final FlipColumns flips;
+        final int cut;
+        int row;
+        int runStart;
+        int runEnd;
+
+        DescendingCursor(FlipColumns flips, int cut) {
+            this.flips = flips;
+            this.cut = cut;
+        }
+
+        void startAtOrBefore(int time) {
+            startRun(flips.firstRowAtOrAfter(time + 1) - 1);
+        }
+
+        boolean hasRow() {
+            return row <= runEnd && row >= cut;
+        }
+
+        int closedTime() {
+            return flips.closedTime(row);
+        }
+
+        String id() {
+            return flips.id(row);
+        }
+
+        boolean advance() {
+            if (row < runEnd) {
+                row++;
+                return true;
+            }
+            startRun(runStart - 1);
+            return hasRow();
+        }
+
+        private void startRun(int end) {
+            runEnd = end;
+            runStart = end;
+            if (end >= cut) {
+                int t = flips.closedTime(end);
+                while (runStart > cut && flips.closedTime(runStart - 1) == t) {
+                    runStart--;
+                }
+            }
+            row = runStart;
         }
-        WeekAggregate wf = new WeekAggregate();
-        wf.weekStart = ws;
-        wf.weekEnd = ws + WEEK_SECS;
-        wf.pos = -i-1;
-        weeks.add(wf.pos, wf);
-        return wf;
     }
 
     class WeekAggregate {
 
-        int pos;
+        int number;
         int weekStart;
         int weekEnd;
 
         Stats allStats = new Stats();
-        Map<Integer, Stats> accountIdToStats = new HashMap<>(20);
-        Map<Integer, List<FlipV2>> accountIdToFlips = new HashMap<>(20);
+        Map<Integer, FlipColumns> accountIdToFlips = new HashMap<>(20);
 
         void addFlip(FlipV2 flip) {
             int accountId = flip.getAccountId();
             allStats.addFlip(flip);
-            accountIdToStats.computeIfAbsent(accountId, (k) -> new Stats()).addFlip(flip);
-            List<FlipV2> flips = accountIdToFlips.computeIfAbsent(accountId, (k) -> new ArrayList<>());
-            int i = bisect(flips.size(), closedTimeCmp(flips, flip.getId(), flip.getClosedTime()));
-            flips.add(-i -1, flip);
+            allStatsIndex.addFlip(number, flip);
+            accountIdToStatsIndex.computeIfAbsent(accountId, (k) -> new WeeklyStatsIndex()).addFlip(number, flip);
+            analytics.addFlip(flip);
+            accountIdToFlips.computeIfAbsent(accountId, (k) -> new FlipColumns(k, flipIds, flipNames)).insert(flip);
         }
 
         FlipV2 removeFlip(String id, int closeTime, int accountId) {
-            List<FlipV2> flips = accountIdToFlips.computeIfAbsent(accountId, (k) -> new ArrayList<>());
-            int i = bisect(flips.size(), closedTimeCmp(flips, id, closeTime));
-            FlipV2 flip = flips.get(i);
+            FlipV2 flip = accountIdToFlips.get(accountId).remove(id, closeTime);
             allStats.subtractFlip(flip);
-            flips.remove(i);
-            accountIdToStats.get(accountId).subtractFlip(flip);
+            allStatsIndex.subtractFlip(number, flip);
+            accountIdToStatsIndex.get(accountId).subtractFlip(number, flip);
+            analytics.subtractFlip(flip);
             return flip;
         }
 
-        public List<FlipV2> flipsAfterForAccount(int time, int accountId) {
+        private int firstRowAfter(FlipColumns flips, int time) {
+            return time <= weekStart ? 0 : flips.firstRowAtOrAfter(time);
+        }
+
+        /**
+         * The number of flips closed at or after the time, for one account or for all of them if the account is null.
+         */
+        int countAfter(int time, Integer accountId) {
             if (weekEnd <= time) {
-                return Collections.emptyList();
+                return 0;
             }
-            List<FlipV2> flips = accountIdToFlips.computeIfAbsent(accountId, (k) -> new ArrayList<>());
-            if (time <= weekStart) {
-                return flips;
+            int n = 0;
+            for (Map.Entry<Integer, FlipColumns> e : accountIdToFlips.entrySet()) {
+                if (accountId == null || accountId.equals(e.getKey())) {
+                    n += e.getValue().size() - firstRowAfter(e.getValue(), time);
+                }
             }
-            int cut = -bisect(flips.size(), closedTimeCmp(flips, "\uFFFF", time)) - 1;
-            return flips.subList(cut, flips.size());
+            return n;
         }
 
-        public List<FlipV2> flipsAfter(int time, boolean requireSorted) {
+        void addStatsAfter(int time, Integer accountId, Stats stats) {
             if (weekEnd <= time) {
-                return Collections.emptyList();
+                return;
             }
-            List<FlipV2> combinedFlips = new ArrayList<>(allStats.flipsMade);
-            accountIdToFlips.keySet().forEach(i -> combinedFlips.addAll(flipsAfterForAccount(time, i)));
-            if (requireSorted) {
-                combinedFlips.sort(Comparator.comparing(FlipV2::getClosedTime).thenComparing(FlipV2::getId));
+            for (Map.Entry<Integer, FlipColumns> e : accountIdToFlips.entrySet()) {
+                if (accountId == null || accountId.equals(e.getKey())) {
+                    e.getValue().addStats(firstRowAfter(e.getValue(), time), stats);
+                }
             }
-            return combinedFlips;
         }
 
-        @Override
-        public String toString() {
-            return String.format("WeekAggregate[start=%s, flips=%d]", Instant.ofEpochSecond(weekStart), allStats.flipsMade);
+        /**
+         * Adds up to limit of the flips closed at or after the time, newest first, after skipping the newest
+         * skip of them. Only the added flips are materialised.
+         */
+        void addFlipsDescending(int time, Integer accountId, int skip, int limit, List<FlipV2> out) {
+            if (accountId != null) {
+                FlipColumns flips = accountIdToFlips.get(accountId);
+                int stop = Math.max(firstRowAfter(flips, time), flips.size() - skip - limit);
+                for (int row = flips.size() - skip - 1; row >= stop; row--) {
+                    out.add(flips.get(row));
+                }
+                return;
+            }
+            // across accounts the per account lists are merged lazily, each one read from its newest flip down
+            FlipColumns[] columns = accountIdToFlips.values().toArray(new FlipColumns[0]);
+            DescendingCursor[] cursors = new DescendingCursor[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                cursors[c] = new DescendingCursor(columns[c], firstRowAfter(columns[c], time));
+            }
+            skip = seek(cursors, Math.max(time, weekStart), skip);
+
+            // newest first, ties on closed time by descending id
+            PriorityQueue<DescendingCursor> heads = new PriorityQueue<>(Math.max(1, cursors.length), (a, b) -> {
+                int cmp = Integer.compare(b.closedTime(), a.closedTime());
+                return cmp != 0 ? cmp : b.id().compareTo(a.id());
+            });
+            for (DescendingCursor cursor : cursors) {
+                if (cursor.hasRow()) {
+                    heads.add(cursor);
+                }
+            }
+            while (!heads.isEmpty() && limit > 0) {
+                DescendingCursor cursor = heads.poll();
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    out.add(cursor.flips.get(cursor.row));
+                    limit--;
+                }
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
         }
-    }
 
-    private Function<Integer, Integer> closedTimeCmp(List<FlipV2> flips, String id, int time) {
-        return (a) -> {
-            int c = Integer.compare(flips.get(a).getClosedTime(), time);
-            return c != 0 ? c : Objects.compare(id, flips.get(a).getId(), Comparator.naturalOrder());
-        };
-    }
+        /**
+         * Moves the cursors past the newest flips without visiting them, by binary searching for the closed
+         * time the skip lands in. Returns how many flips are still to be skipped within that second.
+         */
+        private int seek(DescendingCursor[] cursors, int from, int skip) {
+            int top = weekEnd - 1;
+            if (skip > 0) {
+                // the latest time with more than skip flips closed at or after it
+                int low = from;
+                while (low < top) {
+                    int mid = low + (top - low + 1) / 2;
+                    if (countAtOrAfter(cursors, mid) > skip) {
+                        low = mid;
+                    } else {
+                        top = mid - 1;
+                    }
+                }
+                skip -= countAtOrAfter(cursors, top + 1);
+            }
+            for (DescendingCursor cursor : cursors) {
+                cursor.startAtOrBefore(top);
+            }
+            return skip;
+        }
+
+        private int countAtOrAfter(DescendingCursor[] cursors, int time) {
+            int n = 0;
+            for (DescendingCursor cursor : cursors) {
+                n += cursor.flips.size() - Math.max(cursor.cut, cursor.flips.firstRowAtOrAfter(time));
+            }
+            return n;
+        }
 
-    private int bisect(int size, Function<Integer, Integer> cmpFunc) {
-        int high = size -1;
-        int low = 0;
-        while (low <= high) {
-            int mid = (low + high) >>> 1;
-            int cmp = cmpFunc.apply(mid);
-            if (cmp < 0)
-                low = mid + 1;
-            else if (cmp > 0)
-                high = mid - 1;
-            else
-                return mid;
+        @Override
+        public String toString() {
+            return String.format("WeekAggregate[start=%s, flips=%d]", Instant.ofEpochSecond(weekStart), allStats.flipsMade);
         }
-        return -(low + 1);
     }
-}
\ No newline at end of file
+}
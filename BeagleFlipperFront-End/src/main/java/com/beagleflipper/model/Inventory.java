@@ -1,9 +1,12 @@
 package com.beagleflipper.model;
 
+import com.beagleflipper.util.MsgPackEncoder;
 import net.runelite.api.*;
 import net.runelite.api.ItemID;
+import okio.BufferedSink;
 import static com.beagleflipper.util.Constants.PLATINUM_TOKEN_VALUE;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -48,6 +51,17 @@ public class Inventory extends ArrayList<RSItem> {
         return unnotedItems;
     }
 
+    void writeMsgPack(BufferedSink sink) throws IOException {
+        MsgPackEncoder.writeArrayHeader(sink, size());
+        for (RSItem item : this) {
+            MsgPackEncoder.writeMapHeader(sink, 2);
+            MsgPackEncoder.writeString(sink, "id");
+            MsgPackEncoder.writeLong(sink, item.getId());
+            MsgPackEncoder.writeString(sink, "amount");
+            MsgPackEncoder.writeLong(sink, item.getAmount());
+        }
+    }
+
     Map<Integer, Long> getItemAmounts() {
         return stream().collect(Collectors.groupingBy(RSItem::getId,
                         Collectors.summingLong(RSItem::getAmount)));
@@ -7,14 +7,26 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import okio.BufferedSource;
+import okio.Options;
 
-import java.nio.ByteBuffer;
+import java.io.IOException;
 
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
 @ToString
 public class ItemPrice {
+    private static final int KEY_SELL_PRICE = 0;
+    private static final int KEY_BUY_PRICE = 1;
+    private static final int KEY_MESSAGE = 2;
+    private static final int KEY_GRAPH_DATA = 3;
+    private static final Options KEYS = MsgPackUtil.keyTable(
+            "sl",
+            "bp",
+            "m",
+            "gd");
+
     @SerializedName("sell_price")
     private int sellPrice;
     @SerializedName("buy_price")
@@ -23,30 +35,29 @@ public class ItemPrice {
     @SerializedName("graph_data")
     private Data graphData;
 
-    public static ItemPrice fromMsgPack(ByteBuffer b) {
+    public static ItemPrice fromMsgPack(BufferedSource b) throws IOException {
         ItemPrice ip = new ItemPrice();
         Integer mapSize = MsgPackUtil.decodeMapSize(b);
         if(mapSize == null) {
             return null;
         }
         for (int i = 0; i < mapSize; i++) {
-            String key = (String) MsgPackUtil.decodePrimitive(b);
-            switch (key) {
-                case "sl":
-                    ip.sellPrice = (int) (long)MsgPackUtil.decodePrimitive(b);
+            switch (MsgPackUtil.readKeyId(b, KEYS)) {
+                case KEY_SELL_PRICE:
+                    ip.sellPrice = MsgPackUtil.readInt(b);
                     break;
-                case "bp":
-                    ip.buyPrice = (int) (long) MsgPackUtil.decodePrimitive(b);
+                case KEY_BUY_PRICE:
+                    ip.buyPrice = MsgPackUtil.readInt(b);
                     break;
-                case "m":
-                    ip.message = (String) MsgPackUtil.decodePrimitive(b);
+                case KEY_MESSAGE:
+                    ip.message = MsgPackUtil.readStringOrNull(b);
                     break;
-                case "gd":
+                case KEY_GRAPH_DATA:
                     ip.graphData = Data.fromMsgPack(b);
                     break;
                 default:
                     // discard value for unrecognised key
-                    MsgPackUtil.decodePrimitive(b);
+                    MsgPackUtil.skipValue(b);
             }
         }
         return ip;
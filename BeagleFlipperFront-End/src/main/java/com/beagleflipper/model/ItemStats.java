@@ -0,0 +1,38 @@
+package com.beagleflipper.model;
+
+import lombok.EqualsAndHashCode;
+
+/**
+ * The flip stats of one item, with the time its flips were held for.
+ */
+@EqualsAndHashCode
+public class ItemStats {
+
+    public final int itemId;
+    public String itemName;
+    public final Stats stats = new Stats();
+    // summed closedTime - openedTime over the closed flips
+    public long holdSeconds;
+    public int heldFlips;
+
+    public ItemStats(int itemId) {
+        this.itemId = itemId;
+    }
+
+    public float calculateRoi() {
+        return stats.calculateRoi();
+    }
+
+    public long averageHoldSeconds() {
+        return heldFlips == 0 ? 0 : holdSeconds / heldFlips;
+    }
+
+    public void add(ItemStats s) {
+        if (s.itemName != null) {
+            itemName = s.itemName;
+        }
+        stats.add(s.stats);
+        holdSeconds += s.holdSeconds;
+        heldFlips += s.heldFlips;
+    }
+}
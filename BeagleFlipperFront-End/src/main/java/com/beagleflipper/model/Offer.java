@@ -1,11 +1,15 @@
 package com.beagleflipper.model;
 
+import com.beagleflipper.util.MsgPackEncoder;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import net.runelite.api.GrandExchangeOffer;
+import okio.BufferedSink;
+
+import java.io.IOException;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -126,4 +130,30 @@ public class Offer {
         jsonObject.addProperty("login", login);
         return jsonObject;
     }
-}
\ No newline at end of file
+
+    void writeMsgPack(BufferedSink sink) throws IOException {
+        MsgPackEncoder.writeMapHeader(sink, 11);
+        MsgPackEncoder.writeString(sink, "status");
+        MsgPackEncoder.writeString(sink, status.name().toLowerCase());
+        MsgPackEncoder.writeString(sink, "item_id");
+        MsgPackEncoder.writeLong(sink, itemId);
+        MsgPackEncoder.writeString(sink, "quantity");
+        MsgPackEncoder.writeLong(sink, quantity);
+        MsgPackEncoder.writeString(sink, "price");
+        MsgPackEncoder.writeLong(sink, price);
+        MsgPackEncoder.writeString(sink, "spent");
+        MsgPackEncoder.writeLong(sink, spent);
+        MsgPackEncoder.writeString(sink, "quantity_sold");
+        MsgPackEncoder.writeLong(sink, quantitySold);
+        MsgPackEncoder.writeString(sink, "gp_to_collect");
+        MsgPackEncoder.writeLong(sink, gpToCollect);
+        MsgPackEncoder.writeString(sink, "items_to_collect");
+        MsgPackEncoder.writeIdToAmountMap(sink, itemsToCollect);
+        MsgPackEncoder.writeString(sink, "box_id");
+        MsgPackEncoder.writeLong(sink, boxId);
+        MsgPackEncoder.writeString(sink, "consistent");
+        MsgPackEncoder.writeBoolean(sink, consistent);
+        MsgPackEncoder.writeString(sink, "login");
+        MsgPackEncoder.writeBoolean(sink, login);
+    }
+}
@@ -1,5 +1,6 @@
 package com.beagleflipper.model;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import net.runelite.api.Client;
 import net.runelite.api.Item;
@@ -7,6 +8,7 @@ import net.runelite.api.ItemComposition;
 
 @Getter
 @AllArgsConstructor
+@EqualsAndHashCode
 public class RSItem {
     int id;
     long amount;
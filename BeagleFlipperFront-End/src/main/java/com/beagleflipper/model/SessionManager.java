@@ -5,17 +5,27 @@ import com.google.gson.Gson;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.GrandExchangeOffer;
+import net.runelite.api.GrandExchangeOfferState;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.ItemID;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.*;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static com.beagleflipper.util.Constants.PLATINUM_TOKEN_VALUE;
+
 @Singleton
 @Slf4j
 @RequiredArgsConstructor(onConstructor_ = @Inject)
@@ -32,6 +42,15 @@ public class SessionManager {
 
     private Instant lastSessionUpdateTime;
 
+    @Setter
+    private Clock clock = Clock.systemUTC();
+
+    // whether each GE slot holds an offer and the gp in the inventory, kept up to date from the offer and
+    // inventory events so the session tick doesn't need to build the account status
+    private final boolean[] activeSlots = new boolean[StatusOfferList.NUM_SLOTS];
+    private int activeSlotCount = 0;
+    private long cashStack = 0;
+
     public synchronized SessionData getCachedSessionData() {
         SessionData sd = getSessionData(osrsLoginManager.getPlayerDisplayName());
         return new SessionData(sd.startTime,  sd.durationMillis, sd.averageCash);
@@ -40,23 +59,71 @@ public class SessionManager {
     public synchronized void resetSession() {
         String displayName = osrsLoginManager.getPlayerDisplayName();
         SessionData sd = getSessionData(displayName);
-        sd.startTime = (int) Instant.now().getEpochSecond();
+        sd.startTime = (int) Instant.now(clock).getEpochSecond();
         sd.averageCash = 0;
         sd.durationMillis = 0;
         saveAsync(displayName);
     }
 
-    public synchronized boolean updateSessionStats(boolean currentlyFlipping, long cashStack) {
+    public synchronized void onOfferChanged(int slot, GrandExchangeOfferState state) {
+        if (slot < 0 || slot >= activeSlots.length) {
+            return;
+        }
+        boolean active = OfferStatus.fromRunelite(state) != OfferStatus.EMPTY;
+        if (active != activeSlots[slot]) {
+            activeSlots[slot] = active;
+            activeSlotCount += active ? 1 : -1;
+        }
+    }
+
+    /**
+     * Sets the offers and cash stack from the client's current state, for when the plugin starts while
+     * already logged in and no offer or inventory events have come in.
+     */
+    public synchronized void seed(GrandExchangeOffer[] offers, ItemContainer inventory) {
+        if (offers != null) {
+            for (int slot = 0; slot < offers.length; slot++) {
+                if (offers[slot] != null) {
+                    onOfferChanged(slot, offers[slot].getState());
+                }
+            }
+        }
+        if (inventory != null) {
+            onInventoryChanged(inventory);
+        }
+    }
+
+    public synchronized void onInventoryChanged(ItemContainer inventory) {
+        long gp = 0;
+        for (Item item : inventory.getItems()) {
+            if (item.getId() == ItemID.COINS_995) {
+                gp += item.getQuantity();
+            } else if (item.getId() == ItemID.PLATINUM_TOKEN) {
+                gp += (long) PLATINUM_TOKEN_VALUE * item.getQuantity();
+            }
+        }
+        cashStack = gp;
+    }
+
+    /**
+     * Adds the time since the last update to the session if any offers are active, returning whether the
+     * session stats changed.
+     */
+    public synchronized boolean updateSessionStats() {
+        return updateSessionStats(activeSlotCount > 0, cashStack);
+    }
+
+    private boolean updateSessionStats(boolean currentlyFlipping, long cashStack) {
         String displayName = osrsLoginManager.getPlayerDisplayName();
         if (!currentlyFlipping || displayName == null) {
             lastSessionUpdateTime = null;
             return false;
         } else if (lastSessionUpdateTime == null) {
-            lastSessionUpdateTime = Instant.now();
+            lastSessionUpdateTime = Instant.now(clock);
             return false;
         } else {
             SessionData sd = getSessionData(displayName);
-            Instant now = Instant.now();
+            Instant now = Instant.now(clock);
             long duration = Duration.between(lastSessionUpdateTime, now).toMillis();
             long newAverageCashStack = (cashStack * duration + sd.durationMillis * sd.averageCash) / (sd.durationMillis + duration);
             sd.durationMillis = sd.durationMillis + duration;
@@ -86,7 +153,7 @@ public class SessionManager {
      private SessionData load(String displayName) {
         File file = getFile(displayName);
         if (!file.exists()) {
-            return new SessionData((int) Instant.now().getEpochSecond(), 0 ,0);
+            return new SessionData((int) Instant.now(clock).getEpochSecond(), 0 ,0);
         }
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             SessionData sd =  gson.fromJson(reader, SessionData.class);
@@ -96,7 +163,7 @@ public class SessionManager {
         } catch (JsonSyntaxException | JsonIOException | IOException e) {
             log.warn("error loading session data json file {}", file, e);
         }
-        return new SessionData((int) Instant.now().getEpochSecond(), 0 ,0);
+        return new SessionData((int) Instant.now(clock).getEpochSecond(), 0 ,0);
     }
 
     private File getFile(String displayName) {
@@ -110,5 +177,8 @@ public class SessionManager {
 
     public synchronized void reset() {
         lastSessionUpdateTime = null;
+        Arrays.fill(activeSlots, false);
+        activeSlotCount = 0;
+        cashStack = 0;
     }
 }
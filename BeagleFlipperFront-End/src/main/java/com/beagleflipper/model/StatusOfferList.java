@@ -1,10 +1,13 @@
 package com.beagleflipper.model;
 
+import com.beagleflipper.util.MsgPackEncoder;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import net.runelite.api.GrandExchangeOffer;
+import okio.BufferedSink;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -54,6 +57,13 @@ public class StatusOfferList extends ArrayList<Offer> {
         return jsonArray;
     }
 
+    void writeMsgPack(BufferedSink sink) throws IOException {
+        MsgPackEncoder.writeArrayHeader(sink, size());
+        for (Offer offer : this) {
+            offer.writeMsgPack(sink);
+        }
+    }
+
     public int findEmptySlot() {
         for (int i = 0; i < NUM_SLOTS; i++) {
             if (get(i).getStatus() == OfferStatus.EMPTY) {
@@ -0,0 +1,54 @@
+package com.beagleflipper.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns strings to small int codes so the flip columns only hold an int per string. Entries are never
+ * removed, the dictionary is dropped as a whole when the flip data is reset.
+ */
+class StringDictionary {
+
+    static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int intern(String s) {
+        if (s == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(s);
+        if (code == null) {
+            code = values.size();
+            codes.put(s, code);
+            values.add(s);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of the string, or {@link #NULL_CODE} if it was never interned.
+     */
+    int find(String s) {
+        if (s == null) {
+            return NULL_CODE;
+        }
+        return codes.getOrDefault(s, NULL_CODE);
+    }
+
+    String get(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    void clear() {
+        codes.clear();
+        values.clear();
+    }
+}
@@ -4,15 +4,38 @@ import com.beagleflipper.ui.graph.model.Data;
 import com.beagleflipper.util.MsgPackUtil;
 import com.google.gson.annotations.SerializedName;
 import lombok.*;
+import okio.BufferedSource;
+import okio.Options;
 
-import java.nio.ByteBuffer;
+import java.io.IOException;
 import java.text.NumberFormat;
 
 @Getter
-@AllArgsConstructor
 @ToString
 @NoArgsConstructor
 public class Suggestion {
+    private static final int KEY_TYPE = 0;
+    private static final int KEY_BOX_ID = 1;
+    private static final int KEY_ITEM_ID = 2;
+    private static final int KEY_PRICE = 3;
+    private static final int KEY_QUANTITY = 4;
+    private static final int KEY_NAME = 5;
+    private static final int KEY_ID = 6;
+    private static final int KEY_MESSAGE = 7;
+    private static final int KEY_GRAPH_DATA = 8;
+    private static final int KEY_STATUS_ACK = 9;
+    private static final Options KEYS = MsgPackUtil.keyTable(
+            "t",
+            "b",
+            "i",
+            "p",
+            "q",
+            "n",
+            "id",
+            "m",
+            "gd",
+            "ack");
+
     private String type;
     @SerializedName("box_id")
     private int boxId;
@@ -29,6 +52,22 @@ public class Suggestion {
     @Setter
     private Data graphData;
 
+    // the account status version the server stored while handling this request, 0 if it didn't store one
+    @SerializedName("status_ack")
+    private long statusAck;
+
+    public Suggestion(String type, int boxId, int itemId, int price, int quantity, String name, int id, String message, Data graphData) {
+        this.type = type;
+        this.boxId = boxId;
+        this.itemId = itemId;
+        this.price = price;
+        this.quantity = quantity;
+        this.name = name;
+        this.id = id;
+        this.message = message;
+        this.graphData = graphData;
+    }
+
 
     public boolean equals(Suggestion other) {
         return this.type.equals(other.type)
@@ -62,7 +101,7 @@ public class Suggestion {
         return string;
     }
 
-    public static Suggestion fromMsgPack(ByteBuffer b) {
+    public static Suggestion fromMsgPack(BufferedSource b) throws IOException {
         Suggestion s = new Suggestion();
         Integer mapSize = MsgPackUtil.decodeMapSize(b);
         if(mapSize == null) {
@@ -70,38 +109,40 @@ public class Suggestion {
         }
 
         for (int i = 0; i < mapSize; i++) {
-            String key = (String) MsgPackUtil.decodePrimitive(b);
-            switch (key) {
-                case "t":
-                    s.type = (String) MsgPackUtil.decodePrimitive(b);
+            switch (MsgPackUtil.readKeyId(b, KEYS)) {
+                case KEY_TYPE:
+                    s.type = MsgPackUtil.readStringOrNull(b);
                     break;
-                case "b":
-                    s.boxId = (int) (long) MsgPackUtil.decodePrimitive(b);
+                case KEY_BOX_ID:
+                    s.boxId = MsgPackUtil.readInt(b);
                     break;
-                case "i":
-                    s.itemId = (int) (long) MsgPackUtil.decodePrimitive(b);
+                case KEY_ITEM_ID:
+                    s.itemId = MsgPackUtil.readInt(b);
                     break;
-                case "p":
-                    s.price = (int) (long) MsgPackUtil.decodePrimitive(b);
+                case KEY_PRICE:
+                    s.price = MsgPackUtil.readInt(b);
                     break;
-                case "q":
-                    s.quantity = (int) (long) MsgPackUtil.decodePrimitive(b);
+                case KEY_QUANTITY:
+                    s.quantity = MsgPackUtil.readInt(b);
                     break;
-                case "n":
-                    s.name = (String) MsgPackUtil.decodePrimitive(b);
+                case KEY_NAME:
+                    s.name = MsgPackUtil.readStringOrNull(b);
                     break;
-                case "id":
-                    s.id = (int) (long) MsgPackUtil.decodePrimitive(b);
+                case KEY_ID:
+                    s.id = MsgPackUtil.readInt(b);
                     break;
-                case "m":
-                    s.message = (String) MsgPackUtil.decodePrimitive(b);
+                case KEY_MESSAGE:
+                    s.message = MsgPackUtil.readStringOrNull(b);
                     break;
-                case "gd":
+                case KEY_GRAPH_DATA:
                     s.graphData = Data.fromMsgPack(b);
                     break;
+                case KEY_STATUS_ACK:
+                    s.statusAck = MsgPackUtil.readLong(b);
+                    break;
                 default:
                     // discard value for unrecognised key
-                    MsgPackUtil.decodePrimitive(b);
+                    MsgPackUtil.skipValue(b);
             }
         }
 
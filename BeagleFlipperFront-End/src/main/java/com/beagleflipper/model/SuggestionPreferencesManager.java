@@ -37,14 +37,21 @@ public class SuggestionPreferencesManager {
 
     // state
     private SuggestionPreferences sharedPreferences;
+    // bumped whenever the blocked items may have changed so callers can tell when to re-read them
+    private int blockedItemsVersion = 0;
     
     public synchronized SuggestionPreferences getPreferences() {
         if (sharedPreferences == null) {
             sharedPreferences = load();
+            blockedItemsVersion++;
         }
         return sharedPreferences;
     }
 
+    public synchronized int getBlockedItemsVersion() {
+        return blockedItemsVersion;
+    }
+
     public synchronized void setSellOnlyMode(boolean sellOnlyMode) {
         SuggestionPreferences preferences = getPreferences();
         preferences.setSellOnlyMode(sellOnlyMode);
@@ -80,6 +87,7 @@ public class SuggestionPreferencesManager {
             blockedList.add(itemId);
         }
         preferences.setBlockedItemIds(blockedList);
+        blockedItemsVersion++;
         saveAsync();
         log.debug("blocked item {}", itemId);
     }
@@ -92,6 +100,7 @@ public class SuggestionPreferencesManager {
         }
         blockedList.removeIf(i -> i==itemId);
         preferences.setBlockedItemIds(blockedList);
+        blockedItemsVersion++;
         saveAsync();
         log.debug("unblocked item {}", itemId);
     }
@@ -1,11 +1,14 @@
 package com.beagleflipper.model;
 
+import com.beagleflipper.util.MsgPackEncoder;
 import com.google.gson.JsonObject;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import okio.BufferedSink;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.Objects;
 import java.util.UUID; // KEEP this import if you still use UUID.randomUUID() for fallback, but id itself is String
@@ -63,6 +66,38 @@ public class Transaction {
         return jsonObject;
     }
 
+    public void writeMsgPack(BufferedSink sink) throws IOException {
+        MsgPackEncoder.writeMapHeader(sink, 14);
+        MsgPackEncoder.writeString(sink, "id");
+        MsgPackEncoder.writeString(sink, id != null ? id : UUID.randomUUID().toString());
+        MsgPackEncoder.writeString(sink, "item_id");
+        MsgPackEncoder.writeLong(sink, itemId);
+        MsgPackEncoder.writeString(sink, "item_name");
+        MsgPackEncoder.writeString(sink, itemName);
+        MsgPackEncoder.writeString(sink, "price");
+        MsgPackEncoder.writeLong(sink, price);
+        MsgPackEncoder.writeString(sink, "quantity");
+        MsgPackEncoder.writeLong(sink, quantity);
+        MsgPackEncoder.writeString(sink, "box_id");
+        MsgPackEncoder.writeLong(sink, boxId);
+        MsgPackEncoder.writeString(sink, "amount_spent");
+        MsgPackEncoder.writeLong(sink, amountSpent);
+        MsgPackEncoder.writeString(sink, "time");
+        MsgPackEncoder.writeLong(sink, timestamp != null ? timestamp.getEpochSecond() : 0);
+        MsgPackEncoder.writeString(sink, "copilot_price_used");
+        MsgPackEncoder.writeBoolean(sink, copilotPriceUsed);
+        MsgPackEncoder.writeString(sink, "was_copilot_suggestion");
+        MsgPackEncoder.writeBoolean(sink, wasCopilotSuggestion);
+        MsgPackEncoder.writeString(sink, "consistent_previous_offer");
+        MsgPackEncoder.writeBoolean(sink, consistent);
+        MsgPackEncoder.writeString(sink, "login");
+        MsgPackEncoder.writeBoolean(sink, login);
+        MsgPackEncoder.writeString(sink, "offer_total_quantity");
+        MsgPackEncoder.writeLong(sink, offerTotalQuantity);
+        MsgPackEncoder.writeString(sink, "type");
+        MsgPackEncoder.writeString(sink, this.type != null ? this.type.name().toLowerCase() : "unknown");
+    }
+
     @Override
     public String toString() {
         return String.format("%s %d x %s on slot %d", type, quantity, itemName, boxId); // NEW: Include itemName in toString
@@ -1,7 +1,9 @@
 package com.beagleflipper.model;
 
 import com.beagleflipper.controller.ApiRequestHandler;
+import com.beagleflipper.controller.BeagleFlipperConfig;
 import com.beagleflipper.controller.Persistance;
+import com.beagleflipper.controller.UnAckedTransactionLog;
 import com.beagleflipper.util.MutableReference;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,72 +14,184 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
+/**
+ * Uploads un-acked transactions to the server in fixed size batches, with a few batches in flight at
+ * once so a large backlog drains quickly without a single huge request. Each batch is acked on its own.
+ * Transactions for the same item are never split across batches that are in flight together, so the
+ * server always sees an item's transactions in the order they happened.
+ */
 @Slf4j
 @Singleton
 @RequiredArgsConstructor(onConstructor_ = @Inject)
 public class TransactionManger {
 
+    static final int BATCH_SIZE = 100;
+    static final long BACKOFF_BASE_MS = 2_000;
+    static final long BACKOFF_MAX_MS = 5 * 60_000;
+
     // dependencies
     private final FlipManager flipManager;
     private final ScheduledExecutorService executorService;
     private final ApiRequestHandler api;
     private final LoginResponseManager loginResponseManager;
     private final OsrsLoginManager osrsLoginManager;
+    private final BeagleFlipperConfig config;
 
     // state
-    private final ConcurrentMap<String, List<Transaction>> cachedUnAckedTransactions = new ConcurrentHashMap<>();
+    // un-acked transactions by id, in the order they were added
+    private final ConcurrentMap<String, LinkedHashMap<String, Transaction>> cachedUnAckedTransactions = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AtomicBoolean> transactionSyncScheduled = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SyncState> syncStates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UnAckedTransactionLog> transactionLogs = new ConcurrentHashMap<>();
 
-    public void syncUnAckedTransactions(String displayName) {
+    private static class SyncState {
+        final Set<String> inFlightIds = new HashSet<>();
+        int batchesInFlight = 0;
+        int consecutiveFailures = 0;
+        boolean backingOff = false;
+    }
 
-        long s = System.nanoTime();
-        List<Transaction> toSend;
+    public void syncUnAckedTransactions(String displayName) {
+        List<List<Transaction>> batches;
         synchronized (this) {
-            toSend = new ArrayList<>(getUnAckedTransactions(displayName));
-            if(toSend.isEmpty()) {
-                transactionSyncScheduled.get(displayName).set(false);
-                return;
+            transactionSyncScheduled.computeIfAbsent(displayName, k -> new AtomicBoolean(false)).set(false);
+            batches = takeBatches(displayName);
+        }
+        for (List<Transaction> batch : batches) {
+            sendBatch(batch, displayName);
+        }
+    }
+
+    /**
+     * Picks the next batches to send, up to the number of batches allowed in flight, and marks their
+     * transactions as in flight.
+     */
+    private List<List<Transaction>> takeBatches(String displayName) {
+        SyncState state = getSyncState(displayName);
+        if (state.backingOff) {
+            return Collections.emptyList();
+        }
+        int maxInFlight = Math.max(1, config.transactionSyncBatchesInFlight());
+        List<List<Transaction>> batches = new ArrayList<>();
+        while (state.batchesInFlight < maxInFlight) {
+            List<Transaction> batch = nextBatch(getUnAckedTransactions(displayName).values(), state.inFlightIds);
+            if (batch.isEmpty()) {
+                break;
+            }
+            batch.forEach(t -> state.inFlightIds.add(t.getId()));
+            state.batchesInFlight++;
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Builds the next batch from the transactions that aren't in flight yet. Once an item has a
+     * transaction in flight (or one that didn't make it into this batch) its later transactions are
+     * held back until a later batch.
+     */
+    static List<Transaction> nextBatch(Collection<Transaction> unAcked, Set<String> inFlightIds) {
+        Set<Integer> heldBackItems = new HashSet<>();
+        for (Transaction t : unAcked) {
+            if (inFlightIds.contains(t.getId())) {
+                heldBackItems.add(t.getItemId());
             }
         }
+        List<Transaction> batch = new ArrayList<>();
+        for (Transaction t : unAcked) {
+            if (batch.size() >= BATCH_SIZE) {
+                break;
+            }
+            if (inFlightIds.contains(t.getId()) || heldBackItems.contains(t.getItemId())) {
+                continue;
+            }
+            batch.add(t);
+        }
+        return batch;
+    }
+
+    private void sendBatch(List<Transaction> batch, String displayName) {
+        long s = System.nanoTime();
 
         Consumer<List<FlipV2>> onSuccess = (flips) -> {
             for (FlipV2 f : flips) {
                 log.debug("server updated flip for {} closed qty {}, profit {}", f.getItemName(), f.getClosedQuantity(), f.getProfit());
             }
             flipManager.mergeFlips(flips, displayName);
-            log.info("sending {} transactions took {}ms", toSend.size(), (System.nanoTime() - s) / 1000_000);
+            log.info("sending batch of {} transactions took {}ms", batch.size(), (System.nanoTime() - s) / 1000_000);
+            List<List<Transaction>> next;
             synchronized (this) {
-                List<Transaction> unAckedTransactions  = getUnAckedTransactions(displayName);
-                transactionSyncScheduled.get(displayName).set(false);
-                toSend.forEach(unAckedTransactions::remove);
-                if(!unAckedTransactions.isEmpty()) {
-                    scheduleSyncIn(0, displayName);
+                LinkedHashMap<String, Transaction> unAckedTransactions = getUnAckedTransactions(displayName);
+                SyncState state = getSyncState(displayName);
+                List<String> ackedIds = new ArrayList<>(batch.size());
+                for (Transaction t : batch) {
+                    unAckedTransactions.remove(t.getId());
+                    state.inFlightIds.remove(t.getId());
+                    ackedIds.add(t.getId());
                 }
+                state.batchesInFlight--;
+                state.consecutiveFailures = 0;
+                getTransactionLog(displayName).ack(ackedIds);
+                next = takeBatches(displayName);
+            }
+            for (List<Transaction> b : next) {
+                sendBatch(b, displayName);
             }
         };
 
         Consumer<HttpResponseException> onFailure = (e) -> {
+            long delayMs;
             synchronized (this) {
-                transactionSyncScheduled.get(displayName).set(false);
+                SyncState state = getSyncState(displayName);
+                batch.forEach(t -> state.inFlightIds.remove(t.getId()));
+                state.batchesInFlight--;
+                state.consecutiveFailures++;
+                delayMs = backoffMs(state.consecutiveFailures);
             }
             String currentDisplayName = osrsLoginManager.getPlayerDisplayName();
             if (loginResponseManager.isLoggedIn() && (currentDisplayName == null || currentDisplayName.equals(displayName))) {
-                log.warn("failed to send transactions to copilot server {}", e.getMessage(), e);
-                scheduleSyncIn(10, displayName);
+                log.warn("failed to send batch of {} transactions to copilot server, retrying in {}ms {}", batch.size(), delayMs, e.getMessage(), e);
+                scheduleRetryIn(delayMs, displayName);
             }
         };
-        api.sendTransactionsAsync(toSend, displayName, onSuccess, onFailure);
+        api.sendTransactionsAsync(batch, displayName, onSuccess, onFailure);
+    }
+
+    /**
+     * Exponential backoff with jitter, picks a delay between half and all of the current backoff so
+     * batches failing at the same moment don't all retry at the same moment.
+     */
+    static long backoffMs(int consecutiveFailures) {
+        int exponent = Math.min(Math.max(consecutiveFailures - 1, 0), 20);
+        long backoff = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << exponent);
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private synchronized void scheduleRetryIn(long delayMs, String displayName) {
+        SyncState state = getSyncState(displayName);
+        if (state.backingOff) {
+            return;
+        }
+        // no new batches go out until the retry, the other batches in flight finish as normal
+        state.backingOff = true;
+        executorService.schedule(() -> {
+            synchronized (this) {
+                getSyncState(displayName).backingOff = false;
+            }
+            syncUnAckedTransactions(displayName);
+        }, delayMs, TimeUnit.MILLISECONDS);
     }
 
     public long addTransaction(Transaction transaction, String displayName) {
         synchronized (this) {
-            List<Transaction> unAckedTransactions = getUnAckedTransactions(displayName);
-            unAckedTransactions.add(transaction);
-            Persistance.storeUnAckedTransactions(unAckedTransactions, displayName);
+            LinkedHashMap<String, Transaction> unAckedTransactions = getUnAckedTransactions(displayName);
+            unAckedTransactions.put(transaction.getId(), transaction);
+            getTransactionLog(displayName).append(transaction);
         }
         MutableReference<Long> profit = new MutableReference<>(0L);
         if (OfferStatus.SELL.equals(transaction.getType())) {
@@ -89,8 +203,34 @@ public class TransactionManger {
         return profit.getValue();
     }
 
-    private List<Transaction> getUnAckedTransactions(String displayName) {
-        return cachedUnAckedTransactions.computeIfAbsent(displayName, (k) -> Persistance.loadUnAckedTransactions(displayName));
+    private LinkedHashMap<String, Transaction> getUnAckedTransactions(String displayName) {
+        return cachedUnAckedTransactions.computeIfAbsent(displayName, (k) -> {
+            LinkedHashMap<String, Transaction> byId = new LinkedHashMap<>();
+            for (Transaction t : getTransactionLog(displayName).load()) {
+                byId.put(t.getId(), t);
+            }
+            return byId;
+        });
+    }
+
+    private UnAckedTransactionLog getTransactionLog(String displayName) {
+        return transactionLogs.computeIfAbsent(displayName, k -> Persistance.openUnAckedTransactionLog(displayName, executorService));
+    }
+
+    private SyncState getSyncState(String displayName) {
+        return syncStates.computeIfAbsent(displayName, k -> new SyncState());
+    }
+
+    /**
+     * Flushes and closes the open transaction logs. They are reopened, and the un-acked transactions
+     * reloaded from them, the next time an account's transactions are touched.
+     */
+    public synchronized void reset() {
+        for (UnAckedTransactionLog transactionLog : transactionLogs.values()) {
+            transactionLog.close();
+        }
+        transactionLogs.clear();
+        cachedUnAckedTransactions.clear();
     }
 
     public synchronized void scheduleSyncIn(int seconds, String displayName) {
@@ -0,0 +1,130 @@
+package com.beagleflipper.model;
+
+import java.util.Arrays;
+
+/**
+ * Fenwick tree of flip stats keyed by week number (epoch seconds / week), so the stats of every week
+ * from a given week onwards come out in O(log weeks) instead of summing week by week.
+ */
+class WeeklyStatsIndex {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    // 1-based fenwick arrays, slot i + 1 holds week i
+    private long[] profit;
+    private long[] gross;
+    private long[] taxPaid;
+    private int[] flipsMade;
+    private final Stats total = new Stats();
+
+    WeeklyStatsIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    WeeklyStatsIndex(int capacity) {
+        profit = new long[capacity + 1];
+        gross = new long[capacity + 1];
+        taxPaid = new long[capacity + 1];
+        flipsMade = new int[capacity + 1];
+    }
+
+    void addFlip(int week, FlipV2 f) {
+        add(week, f.getProfit(), f.getSpent(), f.getTaxPaid(), 1);
+    }
+
+    void subtractFlip(int week, FlipV2 f) {
+        add(week, -f.getProfit(), -f.getSpent(), -f.getTaxPaid(), -1);
+    }
+
+    private void add(int week, long p, long g, long t, int n) {
+        ensureCapacity(week + 1);
+        total.profit += p;
+        total.gross += g;
+        total.taxPaid += t;
+        total.flipsMade += n;
+        for (int i = week + 1; i < profit.length; i += i & -i) {
+            profit[i] += p;
+            gross[i] += g;
+            taxPaid[i] += t;
+            flipsMade[i] += n;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(profit, 0);
+        Arrays.fill(gross, 0);
+        Arrays.fill(taxPaid, 0);
+        Arrays.fill(flipsMade, 0);
+        total.profit = 0;
+        total.gross = 0;
+        total.taxPaid = 0;
+        total.flipsMade = 0;
+    }
+
+    /**
+     * The summed stats of all weeks from the given week onwards.
+     */
+    Stats sumFrom(int week) {
+        Stats stats = total.copy();
+        for (int i = Math.min(week, profit.length - 1); i > 0; i -= i & -i) {
+            stats.profit -= profit[i];
+            stats.gross -= gross[i];
+            stats.taxPaid -= taxPaid[i];
+            stats.flipsMade -= flipsMade[i];
+        }
+        return stats;
+    }
+
+    private void ensureCapacity(int weeks) {
+        if (weeks < profit.length) {
+            return;
+        }
+        int n = Math.max(weeks, (profit.length - 1) * 2);
+        // recover each week's own value, then rebuild the tree over the larger range
+        long[] p = pointValues(profit, n);
+        long[] g = pointValues(gross, n);
+        long[] t = pointValues(taxPaid, n);
+        long[] f = pointValues(flipsMade, n);
+        profit = build(p);
+        gross = build(g);
+        taxPaid = build(t);
+        flipsMade = new int[n + 1];
+        long[] fTree = build(f);
+        for (int i = 1; i <= n; i++) {
+            flipsMade[i] = (int) fTree[i];
+        }
+    }
+
+    private static long[] pointValues(long[] tree, int n) {
+        long[] values = new long[n + 1];
+        for (int i = 1; i < tree.length; i++) {
+            values[i] = tree[i];
+            int child = i - 1;
+            int stop = i - (i & -i);
+            while (child > stop) {
+                values[i] -= tree[child];
+                child -= child & -child;
+            }
+        }
+        return values;
+    }
+
+    private static long[] pointValues(int[] tree, int n) {
+        long[] asLong = new long[tree.length];
+        for (int i = 0; i < tree.length; i++) {
+            asLong[i] = tree[i];
+        }
+        return pointValues(asLong, n);
+    }
+
+    private static long[] build(long[] values) {
+        long[] tree = Arrays.copyOf(values, values.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        return tree;
+    }
+}
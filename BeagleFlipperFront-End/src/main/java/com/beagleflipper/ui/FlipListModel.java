@@ -0,0 +1,79 @@
+package com.beagleflipper.ui;
+
+import com.beagleflipper.model.FlipManager;
+import com.beagleflipper.model.FlipV2;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The flips of the selected interval, newest first, read from the {@link FlipManager} in chunks as the list
+ * scrolls to them. Only the chunks the list has actually shown are held, the least recently shown ones are
+ * dropped once there are too many, and a refresh keeps just the ones in view.
+ */
+class FlipListModel extends RefreshableListModel<FlipV2> {
+
+    private static final int CHUNK_SIZE = 100;
+    private static final int MAX_CHUNKS = 20;
+
+    private final FlipManager flipManager;
+    private final Map<Integer, List<FlipV2>> chunks = new LinkedHashMap<Integer, List<FlipV2>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<FlipV2>> eldest) {
+            return size() > MAX_CHUNKS;
+        }
+    };
+    private int size = 0;
+
+    FlipListModel(FlipManager flipManager) {
+        this.flipManager = flipManager;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public FlipV2 getElementAt(int index) {
+        List<FlipV2> chunk = chunks.computeIfAbsent(index / CHUNK_SIZE, this::loadChunk);
+        int row = index % CHUNK_SIZE;
+        return row < chunk.size() ? chunk.get(row) : null;
+    }
+
+    /**
+     * Reloads the chunks holding the rows the list is showing, firing change events only for the rows that
+     * differ. The other chunks are dropped and read again if the list scrolls back to them, so a refresh costs
+     * the same however far the list has been scrolled. A negative first visible row means nothing is shown.
+     */
+    void refresh(int newSize, int firstVisible, int lastVisible) {
+        int oldSize = size;
+        size = newSize;
+        Map<Integer, List<FlipV2>> old = new LinkedHashMap<>(chunks);
+        chunks.clear();
+        fireResized(oldSize, newSize);
+        if (firstVisible < 0 || newSize == 0) {
+            return;
+        }
+        int lastChunk = Math.min(Math.max(firstVisible, lastVisible), newSize - 1) / CHUNK_SIZE;
+        for (int c = Math.min(firstVisible, newSize - 1) / CHUNK_SIZE; c <= lastChunk; c++) {
+            int start = c * CHUNK_SIZE;
+            List<FlipV2> chunk = loadChunk(c);
+            chunks.put(c, chunk);
+            fireChangedRows(start, old.getOrDefault(c, new ArrayList<>()), chunk.subList(0, Math.min(chunk.size(), newSize - start)));
+        }
+    }
+
+    void clear() {
+        refresh(0, -1, -1);
+    }
+
+    private List<FlipV2> loadChunk(int chunk) {
+        if (chunk * CHUNK_SIZE >= size) {
+            return new ArrayList<>();
+        }
+        return flipManager.getPageFlips(chunk + 1, CHUNK_SIZE);
+    }
+}
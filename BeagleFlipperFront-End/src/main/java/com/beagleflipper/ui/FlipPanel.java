@@ -5,41 +5,56 @@ import com.beagleflipper.model.FlipV2;
 import net.runelite.client.ui.ColorScheme;
 
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.ListCellRenderer;
+import javax.swing.border.EmptyBorder;
 import java.awt.BorderLayout;
 import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.FlowLayout;
+import java.awt.Component;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 
-public class FlipPanel extends JPanel {
+/**
+ * Renders the rows of the flip list. One instance is shared by every row, it is just restamped with each
+ * flip as the list paints it.
+ */
+public class FlipPanel extends JPanel implements ListCellRenderer<FlipV2> {
 
-    public FlipPanel(FlipV2 flip, BeagleFlipperConfig config) {
+    private final BeagleFlipperConfig config;
+    private final JLabel itemQuantityAndName = new JLabel();
+    private final JLabel profitLabel = new JLabel();
+
+    public FlipPanel(BeagleFlipperConfig config) {
+        this.config = config;
         setLayout(new BorderLayout());
         setBackground(ColorScheme.DARKER_GRAY_COLOR);
-
-        JLabel itemQuantityAndName = new JLabel(String.format("%d x %s", flip.getClosedQuantity(), UIUtilities.truncateString(flip.getItemName(), 20)));
+        setBorder(new EmptyBorder(0, 4, 0, 4));
         itemQuantityAndName.setForeground(Color.WHITE);
+        add(itemQuantityAndName, BorderLayout.LINE_START);
+        add(profitLabel, BorderLayout.LINE_END);
+    }
 
-        JPanel leftPanel = new JPanel();
-        leftPanel.setLayout(new FlowLayout(FlowLayout.LEFT, 0, 0));
-        leftPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-        leftPanel.add(itemQuantityAndName);
-
+    @Override
+    public Component getListCellRendererComponent(JList<? extends FlipV2> list, FlipV2 flip, int index, boolean isSelected, boolean cellHasFocus) {
+        if (flip == null) {
+            itemQuantityAndName.setText("");
+            profitLabel.setText("");
+            return this;
+        }
+        itemQuantityAndName.setText(String.format("%d x %s", flip.getClosedQuantity(), UIUtilities.truncateString(flip.getItemName(), 20)));
         // RESTORED: Displays the 'profit' field directly from the flip object
-        JLabel profitLabel = new JLabel(UIUtilities.formatProfitWithoutGp(flip.getProfit()));
+        profitLabel.setText(UIUtilities.formatProfitWithoutGp(flip.getProfit()));
         profitLabel.setForeground(UIUtilities.getProfitColor(flip.getProfit(), config));
+        return this;
+    }
 
-        add(leftPanel, BorderLayout.LINE_START);
-        add(profitLabel, BorderLayout.LINE_END);
-        setMaximumSize(new Dimension(Integer.MAX_VALUE, getPreferredSize().height));
-
+    public static String tooltipText(FlipV2 flip) {
         String closeLabel = flip.getClosedQuantity() >= flip.getOpenedQuantity() ? "Closed time" : "Partial close time";
 
-        String tooltipText = String.format("<html>" +
+        return String.format("<html>" +
                         "ID: %s<br>" +
                         "Item ID: %d<br>" +
                         "Account: %s<br>" +
@@ -67,7 +82,6 @@ public class FlipPanel extends JPanel {
                 UIUtilities.formatProfitWithoutGp(flip.getProfit()), // Displays profit from the flip object
                 flip.isClosed()
         );
-        setToolTipText(tooltipText);
     }
 
     public static String formatEpoch(long epochSeconds) {
@@ -79,4 +93,4 @@ public class FlipPanel extends JPanel {
                 .withZone(ZoneId.systemDefault());
         return formatter.format(instant);
     }
-}
\ No newline at end of file
+}
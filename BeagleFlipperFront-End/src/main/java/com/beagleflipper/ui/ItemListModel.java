@@ -0,0 +1,28 @@
+package com.beagleflipper.ui;
+
+import com.beagleflipper.model.ItemStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ItemListModel extends RefreshableListModel<ItemStats> {
+
+    private List<ItemStats> items = new ArrayList<>();
+
+    @Override
+    public int getSize() {
+        return items.size();
+    }
+
+    @Override
+    public ItemStats getElementAt(int index) {
+        return items.get(index);
+    }
+
+    void setItems(List<ItemStats> updated) {
+        List<ItemStats> old = items;
+        items = updated;
+        fireResized(old.size(), updated.size());
+        fireChangedRows(0, old.subList(0, Math.min(old.size(), updated.size())), updated.subList(0, Math.min(old.size(), updated.size())));
+    }
+}
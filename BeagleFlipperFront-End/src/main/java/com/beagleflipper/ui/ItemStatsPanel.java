@@ -0,0 +1,81 @@
+package com.beagleflipper.ui;
+
+import com.beagleflipper.controller.BeagleFlipperConfig;
+import com.beagleflipper.model.ItemStats;
+import net.runelite.client.ui.ColorScheme;
+
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.ListCellRenderer;
+import javax.swing.border.EmptyBorder;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+
+/**
+ * Renders the rows of the items list, one instance shared by every row.
+ */
+public class ItemStatsPanel extends JPanel implements ListCellRenderer<ItemStats> {
+
+    private final BeagleFlipperConfig config;
+    private final JLabel nameAndFlips = new JLabel();
+    private final JLabel profitLabel = new JLabel();
+
+    public ItemStatsPanel(BeagleFlipperConfig config) {
+        this.config = config;
+        setLayout(new BorderLayout());
+        setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        setBorder(new EmptyBorder(0, 4, 0, 4));
+        nameAndFlips.setForeground(Color.WHITE);
+        add(nameAndFlips, BorderLayout.LINE_START);
+        add(profitLabel, BorderLayout.LINE_END);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends ItemStats> list, ItemStats item, int index, boolean isSelected, boolean cellHasFocus) {
+        if (item == null) {
+            nameAndFlips.setText("");
+            profitLabel.setText("");
+            return this;
+        }
+        nameAndFlips.setText(String.format("%s (%d)", UIUtilities.truncateString(name(item), 20), item.stats.flipsMade));
+        profitLabel.setText(UIUtilities.formatProfitWithoutGp(item.stats.profit));
+        profitLabel.setForeground(UIUtilities.getProfitColor(item.stats.profit, config));
+        return this;
+    }
+
+    public static String tooltipText(ItemStats item) {
+        return String.format("<html>" +
+                        "Item ID: %d<br>" +
+                        "Flips: %d<br>" +
+                        "Total spent: %s gp<br>" +
+                        "Tax paid: %s gp<br>" +
+                        "Profit: %s gp<br>" +
+                        "ROI: %.3f%%<br>" +
+                        "Avg hold time: %s" +
+                        "</html>",
+                item.itemId,
+                item.stats.flipsMade,
+                UIUtilities.formatProfitWithoutGp(item.stats.gross),
+                UIUtilities.formatProfitWithoutGp(item.stats.taxPaid),
+                UIUtilities.formatProfitWithoutGp(item.stats.profit),
+                item.calculateRoi() * 100,
+                formatDuration(item.averageHoldSeconds())
+        );
+    }
+
+    private static String name(ItemStats item) {
+        return item.itemName == null ? "Item " + item.itemId : item.itemName;
+    }
+
+    static String formatDuration(long seconds) {
+        if (seconds <= 0) {
+            return "n/a";
+        }
+        if (seconds < 3600) {
+            return String.format("%dm %02ds", seconds / 60, seconds % 60);
+        }
+        return String.format("%dh %02dm", seconds / 3600, (seconds % 3600) / 60);
+    }
+}
@@ -0,0 +1,69 @@
+package com.beagleflipper.ui;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges refresh requests made from any thread into at most one run of the refresh on the Swing EDT per
+ * frame interval. A request made while a run is pending just joins it, a request made during a run gets
+ * the next one.
+ */
+@Slf4j
+public class RefreshCoalescer {
+
+    static final int FRAME_INTERVAL_MS = 33;
+    private static final int LOG_EVERY_RUNS = 200;
+
+    private final String name;
+    private final Runnable refresh;
+    private final Timer timer;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+
+    public RefreshCoalescer(String name, Runnable refresh) {
+        this(name, FRAME_INTERVAL_MS, refresh);
+    }
+
+    RefreshCoalescer(String name, int intervalMs, Runnable refresh) {
+        this.name = name;
+        this.refresh = refresh;
+        this.timer = new Timer(intervalMs, (e) -> run());
+        this.timer.setRepeats(false);
+    }
+
+    public void request() {
+        requests.incrementAndGet();
+        if (pending.compareAndSet(false, true)) {
+            timer.restart();
+        }
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getRunCount() {
+        return runs.get();
+    }
+
+    /**
+     * The number of requests that were merged into another request's run.
+     */
+    public long getCoalescedCount() {
+        return requests.get() - runs.get();
+    }
+
+    private void run() {
+        // cleared first so anything requested while refreshing gets its own run
+        pending.set(false);
+        long n = runs.incrementAndGet();
+        if (n % LOG_EVERY_RUNS == 0) {
+            log.debug("{} refreshed {} times for {} requests ({} coalesced)", name, n, requests.get(), getCoalescedCount());
+        }
+        refresh.run();
+    }
+}
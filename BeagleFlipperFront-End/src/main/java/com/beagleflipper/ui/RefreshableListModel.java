@@ -0,0 +1,37 @@
+package com.beagleflipper.ui;
+
+import javax.swing.AbstractListModel;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * List model base that tells the list only about the rows that actually changed on a refresh, so the list
+ * only repaints those.
+ */
+abstract class RefreshableListModel<T> extends AbstractListModel<T> {
+
+    protected void fireResized(int oldSize, int newSize) {
+        if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        } else if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        }
+    }
+
+    /**
+     * Fires one change event per run of differing rows, the rows starting at the given index.
+     */
+    protected void fireChangedRows(int offset, List<T> before, List<T> after) {
+        int n = Math.max(before.size(), after.size());
+        int runStart = -1;
+        for (int i = 0; i <= n; i++) {
+            boolean changed = i < n && (i >= before.size() || i >= after.size() || !Objects.equals(before.get(i), after.get(i)));
+            if (changed && runStart < 0) {
+                runStart = i;
+            } else if (!changed && runStart >= 0) {
+                fireContentsChanged(this, offset + runStart, offset + i - 1);
+                runStart = -1;
+            }
+        }
+    }
+}
@@ -19,9 +19,11 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -47,6 +49,10 @@ public class StatsPanelV2 extends JPanel {
             "Session",
             "All"};
 
+    private static final String FLIPS_VIEW = "Flips";
+    private static final String ITEMS_VIEW = "Items (all time)";
+    private static final String[] WEEKDAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+
     private static final Pattern INTERVAL_PATTERN = Pattern.compile("^-?(\\d+)([hdwmy])[()\\w\\s]*");
 
     // dependencies
@@ -62,10 +68,18 @@ public class StatsPanelV2 extends JPanel {
     private JComboBox<String> timeIntervalDropdown;
     private final DefaultComboBoxModel<String> rsAccountDropdownModel = new DefaultComboBoxModel<>();
     private final JComboBox<String> rsAccountDropdown = new JComboBox<>(rsAccountDropdownModel);
+    private final JComboBox<String> viewDropdown = new JComboBox<>(new String[]{FLIPS_VIEW, ITEMS_VIEW});
     private final JButton sessionResetButton = new JButton("  Reset session ");
     private JPanel profitAndSubInfoPanel;
     private JPanel subInfoPanel;
-    private final JPanel flipsPanel = new JPanel();
+    private final FlipListModel flipListModel;
+    private final ItemListModel itemListModel = new ItemListModel();
+    private final JList<FlipV2> flipList;
+    private final JList<ItemStats> itemList;
+    private final JScrollPane scrollPane;
+    private final JPanel itemSummaryPanel = UIUtilities.newVerticalBoxLayoutJPanel();
+    private final JLabel bestHourVal = new JLabel();
+    private final JLabel bestWeekdayVal = new JLabel();
     private final JLabel totalProfitVal = new JLabel("0 gp");
     private final JLabel roiVal = new JLabel("-0.00%");
     private final JLabel flipsMadeVal = new JLabel("0");
@@ -73,12 +87,16 @@ public class StatsPanelV2 extends JPanel {
     private final JLabel sessionTimeVal = new JLabel("00:00:00");
     private final JLabel hourlyProfitVal = new JLabel("0 gp/hr");
     private final JLabel avgCashVal = new JLabel("0 gp");
-    private final Paginator paginator;
 
     private IntervalTimeUnit selectedIntervalTimeUnit = IntervalTimeUnit.SESSION;
     private int selectedIntervalValue = -1;
     private volatile boolean lastValidState = false;
 
+    // refresh requests are merged, the flags say what the next refresh has to redo
+    private final RefreshCoalescer refresher = new RefreshCoalescer("stats panel", this::refreshNow);
+    private final AtomicBoolean pendingFlipsChanged = new AtomicBoolean();
+    private volatile boolean pendingValidLoginState = false;
+
     @Inject
     public StatsPanelV2(LoginResponseManager loginResponseManager,
                         OsrsLoginManager osrsLoginManager,
@@ -100,11 +118,32 @@ public class StatsPanelV2 extends JPanel {
         setupProfitAndSubInfoPanel();
         setupSessionResetButton();
 
-        flipsPanel.setLayout(new BoxLayout(flipsPanel, BoxLayout.Y_AXIS));
-        flipsPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-        flipsPanel.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        // the rows are painted by one shared renderer and only the visible flips are ever read from the manager
+        flipListModel = new FlipListModel(flipManager);
+        flipList = new JList<FlipV2>(flipListModel) {
+            @Override
+            public String getToolTipText(MouseEvent e) {
+                FlipV2 flip = rowAt(this, e);
+                return flip == null ? null : FlipPanel.tooltipText(flip);
+            }
+        };
+        setupList(flipList, new FlipPanel(config));
+        itemList = new JList<ItemStats>(itemListModel) {
+            @Override
+            public String getToolTipText(MouseEvent e) {
+                ItemStats item = rowAt(this, e);
+                return item == null ? null : ItemStatsPanel.tooltipText(item);
+            }
+        };
+        setupList(itemList, new ItemStatsPanel(config));
+
+        itemSummaryPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        itemSummaryPanel.setBorder(new EmptyBorder(0, 5, 0, 5));
+        itemSummaryPanel.add(buildSubInfoPanelItem("Best hour:", bestHourVal, ColorScheme.LIGHT_GRAY_COLOR));
+        itemSummaryPanel.add(buildSubInfoPanelItem("Best day:", bestWeekdayVal, ColorScheme.LIGHT_GRAY_COLOR));
+        itemSummaryPanel.setVisible(false);
 
-        JScrollPane scrollPane = new JScrollPane(flipsPanel);
+        scrollPane = new JScrollPane(flipList);
         scrollPane.setBackground(ColorScheme.DARKER_GRAY_COLOR);
         scrollPane.getVerticalScrollBar().setPreferredSize(new Dimension(2, 0));
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
@@ -137,18 +176,42 @@ public class StatsPanelV2 extends JPanel {
         });
         intervalRsAccountDropdownWrapper.setMaximumSize(new Dimension(Integer.MAX_VALUE, intervalRsAccountDropdownWrapper.getPreferredSize().height));
 
+        viewDropdown.setBorder(BorderFactory.createEmptyBorder());
+        viewDropdown.setMaximumSize(new Dimension(Integer.MAX_VALUE, viewDropdown.getPreferredSize().height));
+        viewDropdown.addActionListener(e -> refresh(true, lastValidState));
+
         mainPanel.add(intervalRsAccountDropdownWrapper);
         mainPanel.add(profitAndSubInfoPanel);
+        mainPanel.add(viewDropdown);
+        mainPanel.add(itemSummaryPanel);
         mainPanel.add(scrollPane);
 
         add(mainPanel, BorderLayout.CENTER);
 
-        paginator = new Paginator(() -> refresh(true, lastValidState));
-        add(paginator, BorderLayout.SOUTH);
-
         flipManager.setFlipsChangedCallback(() -> refresh(true, loginResponseManager.isLoggedIn() && osrsLoginManager.isValidLoginState()));
     }
 
+    private static <T> void setupList(JList<T> list, ListCellRenderer<T> renderer) {
+        list.setCellRenderer(renderer);
+        list.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        list.setBorder(BorderFactory.createEmptyBorder(4, 0, 4, 0));
+        // the renderers ignore selection, so clicking a row doesn't highlight it
+        list.setFocusable(false);
+        // with a fixed row size the list never measures rows it isn't showing. The width is a minimum, rows
+        // are stretched to the width of the list.
+        list.setFixedCellHeight(renderer.getListCellRendererComponent(list, null, 0, false, false).getPreferredSize().height + 2);
+        list.setFixedCellWidth(1);
+        ToolTipManager.sharedInstance().registerComponent(list);
+    }
+
+    private static <T> T rowAt(JList<T> list, MouseEvent e) {
+        int index = list.locationToIndex(e.getPoint());
+        if (index < 0 || !list.getCellBounds(index, index).contains(e.getPoint())) {
+            return null;
+        }
+        return list.getModel().getElementAt(index);
+    }
+
     private void setupSessionResetButton() {
         sessionResetButton.setBorder(BorderFactory.createEmptyBorder());
         sessionResetButton.addActionListener((l) -> {
@@ -365,15 +428,22 @@ public class StatsPanelV2 extends JPanel {
     // - FlipTrackerV2 initialisation (ScheduledExecutorService)
     // - session stats updated (ScheduledExecutorService)
     // - plugin config changed (Client thread)
-    // - page changed (Swing EDT thread)
+    // - flips / items view changed (Swing EDT thread)
     //
 
+    // these come in bursts (every transaction in a GE update, the flip history loading) so they are coalesced
+    // into at most one refresh per frame on the Swing EDT thread
     public void refresh(boolean flipsMaybeChanged, boolean validLoginState) {
-        if(!SwingUtilities.isEventDispatchThread()) {
-            // we always execute this in the Swing EDT thread
-            SwingUtilities.invokeLater(() -> refresh(flipsMaybeChanged, validLoginState));
-            return;
+        if (flipsMaybeChanged) {
+            pendingFlipsChanged.set(true);
         }
+        pendingValidLoginState = validLoginState;
+        refresher.request();
+    }
+
+    private void refreshNow() {
+        boolean flipsMaybeChanged = pendingFlipsChanged.getAndSet(false);
+        boolean validLoginState = pendingValidLoginState;
         lastValidState = validLoginState;
         if (!validLoginState) {
             totalProfitVal.setText("0 gp");
@@ -383,8 +453,8 @@ public class StatsPanelV2 extends JPanel {
             sessionTimeVal.setText("00:00:00");
             hourlyProfitVal.setText("0 gp/hr");
             avgCashVal.setText("0 gp");
-            flipsPanel.removeAll();
-            paginator.setTotalPages(1);
+            flipListModel.clear();
+            itemListModel.setItems(new ArrayList<>());
             boolean v = IntervalTimeUnit.SESSION.equals(selectedIntervalTimeUnit);
             SESSION_STATS_INDS.forEach(i -> subInfoPanel.getComponent(i).setVisible(v));
             rsAccountDropdownModel.removeAllElements();
@@ -410,15 +480,28 @@ public class StatsPanelV2 extends JPanel {
 
         SessionData sd = sessionManager.getCachedSessionData();
         Stats stats = flipManager.getIntervalStats();
-        paginator.setTotalPages(1 + stats.flipsMade / 50);
+        boolean itemsView = ITEMS_VIEW.equals(viewDropdown.getSelectedItem());
         long s = System.nanoTime();
         if (flipsMaybeChanged) {
-            flipsPanel.removeAll();
-            flipManager.getPageFlips(paginator.getPageNumber(), 50).forEach(f -> flipsPanel.add(new FlipPanel(f, config)));
+            if (itemsView) {
+                populateItems(selectedDisplayName);
+            } else {
+                flipListModel.refresh(stats.flipsMade, flipList.getFirstVisibleIndex(), flipList.getLastVisibleIndex());
+            }
+            JList<?> shownList = itemsView ? itemList : flipList;
+            if (scrollPane.getViewport().getView() != shownList) {
+                scrollPane.setViewportView(shownList);
+                itemSummaryPanel.setVisible(itemsView);
+            }
             // labels displayed to the user
             roiVal.setText(String.format("%.3f%%", stats.calculateRoi() * 100));
             roiVal.setForeground(UIUtilities.getProfitColor(stats.profit, config));
-            flipsMadeVal.setText(String.format("%d", stats.flipsMade));
+            int loadProgress = flipManager.getHistoryLoadProgress();
+            if (loadProgress >= 0) {
+                flipsMadeVal.setText(String.format("%d (loading %d)", stats.flipsMade, loadProgress));
+            } else {
+                flipsMadeVal.setText(String.format("%d", stats.flipsMade));
+            }
             taxPaidVal.setText(UIUtilities.formatProfit(stats.taxPaid));
             totalProfitVal.setText(UIUtilities.formatProfit(stats.profit));
             totalProfitVal.setForeground(UIUtilities.getProfitColor(stats.profit, config));
@@ -445,6 +528,26 @@ public class StatsPanelV2 extends JPanel {
         repaint();
     }
 
+    private void populateItems(String displayName) {
+        itemListModel.setItems(flipManager.getItemStats(displayName));
+        Stats[] byHour = flipManager.getHourOfDayStats(displayName);
+        Stats[] byWeekday = flipManager.getWeekdayStats(displayName);
+        int bestHour = mostProfitable(byHour);
+        int bestWeekday = mostProfitable(byWeekday);
+        bestHourVal.setText(bestHour < 0 ? "n/a" : String.format("%02d:00 (%s)", bestHour, UIUtilities.formatProfit(byHour[bestHour].profit)));
+        bestWeekdayVal.setText(bestWeekday < 0 ? "n/a" : String.format("%s (%s)", WEEKDAYS[bestWeekday], UIUtilities.formatProfit(byWeekday[bestWeekday].profit)));
+    }
+
+    private static int mostProfitable(Stats[] stats) {
+        int best = -1;
+        for (int i = 0; i < stats.length; i++) {
+            if (stats[i].flipsMade > 0 && (best < 0 || stats[i].profit > stats[best].profit)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
     private boolean selectedDisplayNameOutOfDate(String selectedDisplayName) {
         String oldSelectedDisplayName = (String) rsAccountDropdown.getSelectedItem();
         if (ALL_ACCOUNTS_DROPDOWN_OPTION.equals(oldSelectedDisplayName) && selectedDisplayName == null) {
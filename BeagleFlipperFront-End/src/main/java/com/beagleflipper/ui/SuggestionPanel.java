@@ -66,6 +66,8 @@ public class SuggestionPanel extends JPanel {
     @Setter
     private String serverMessage = "";
 
+    private final RefreshCoalescer refresher = new RefreshCoalescer("suggestion panel", this::refreshNow);
+
 
     @Inject
     public SuggestionPanel(BeagleFlipperConfig config,
@@ -405,12 +407,14 @@ public class SuggestionPanel extends JPanel {
         highlightController.redraw();
     }
 
+    // requested from many places (suggestion responses, GE events, login state), merged into at most one
+    // refresh per frame on the Swing EDT thread
     public void refresh() {
+        refresher.request();
+    }
+
+    private void refreshNow() {
         log.debug("refreshing suggestion panel {}", client.getGameState());
-        if(!SwingUtilities.isEventDispatchThread()) {
-            SwingUtilities.invokeLater(this::refresh);
-            return;
-        }
         if(isPreferencesPanelVisible) {
             preferencesPanel.refresh();
         }
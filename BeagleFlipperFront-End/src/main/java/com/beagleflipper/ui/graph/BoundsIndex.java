@@ -0,0 +1,73 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.ui.graph.model.Series;
+
+/**
+ * Min / max segment trees and price prefix sums over a series, built once so the price bounds and mean of
+ * any run of points come out in O(log n) rather than a scan. For prediction series the IQR band counts
+ * towards the min and max.
+ */
+class BoundsIndex {
+
+    private final int n;
+    // bottom up segment trees, leaf i at n + i
+    private final int[] min;
+    private final int[] max;
+    private final long[] priceSums;
+
+    BoundsIndex(Series series) {
+        n = series.size;
+        min = new int[2 * n];
+        max = new int[2 * n];
+        priceSums = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            int price = series.prices[i];
+            min[n + i] = series.iqrLower == null ? price : Math.min(price, series.iqrLower[i]);
+            max[n + i] = series.iqrUpper == null ? price : Math.max(price, series.iqrUpper[i]);
+            priceSums[i + 1] = priceSums[i] + price;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            min[i] = Math.min(min[2 * i], min[2 * i + 1]);
+            max[i] = Math.max(max[2 * i], max[2 * i + 1]);
+        }
+    }
+
+    /**
+     * The lowest price (or IQR lower bound) of points [from, to).
+     */
+    int min(int from, int to) {
+        int res = Integer.MAX_VALUE;
+        for (int lo = from + n, hi = to + n; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                res = Math.min(res, min[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                res = Math.min(res, min[--hi]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * The highest price (or IQR upper bound) of points [from, to).
+     */
+    int max(int from, int to) {
+        int res = Integer.MIN_VALUE;
+        for (int lo = from + n, hi = to + n; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                res = Math.max(res, max[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                res = Math.max(res, max[--hi]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * The summed prices of points [from, to).
+     */
+    long priceSum(int from, int to) {
+        return priceSums[to] - priceSums[from];
+    }
+}
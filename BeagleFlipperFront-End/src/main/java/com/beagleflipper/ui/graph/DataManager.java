@@ -1,29 +1,29 @@
 package com.beagleflipper.ui.graph;
 
 import com.beagleflipper.ui.graph.model.Bounds;
-import com.beagleflipper.ui.graph.model.Constants;
 import com.beagleflipper.ui.graph.model.Data;
 import com.beagleflipper.ui.graph.model.Datapoint;
+import com.beagleflipper.ui.graph.model.Series;
 import com.beagleflipper.util.GeTax;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.awt.*;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.function.Predicate;
 
 
 @Getter
 public class DataManager {
 
-    public final List<Datapoint> highDatapoints = new ArrayList<>();
-    public final List<Datapoint> lowDatapoints = new ArrayList<>();
-    public final List<Datapoint> predictionLowDatapoints = new ArrayList<>();
-    public final List<Datapoint> predictionHighDatapoints = new ArrayList<>();
+    public final Series highSeries;
+    public final Series lowSeries;
+    public final Series predictionLowSeries;
+    public final Series predictionHighSeries;
+    public final LodPyramid lowPyramid;
+    public final LodPyramid highPyramid;
 
     public final Data data;
     public double priceChange24H = 0;
@@ -36,34 +36,56 @@ public class DataManager {
     public long tax;
     public long profit;
 
+    // rebuilt whenever the view changes, mouse moves in between only look up the cells around the cursor
+    @Getter(AccessLevel.NONE)
+    private HoverGrid hoverGrid;
+
+    // one per series, in allSeries() order
+    @Getter(AccessLevel.NONE)
+    private final BoundsIndex[] boundsIndexes;
+
 
     public DataManager(Data data) {
         this.data = data;
-        processDatapoints();
+        lowSeries = Series.stitch(true, data.low1hTimes, data.low1hPrices, data.low5mTimes, data.low5mPrices, data.lowLatestTimes, data.lowLatestPrices);
+        highSeries = Series.stitch(false, data.high1hTimes, data.high1hPrices, data.high5mTimes, data.high5mPrices, data.highLatestTimes, data.highLatestPrices);
+        predictionLowSeries = Series.prediction(true, data.predictionTimes, data.predictionLowMeans, data.predictionLowIQRLower, data.predictionLowIQRUpper);
+        predictionHighSeries = Series.prediction(false, data.predictionTimes, data.predictionHighMeans, data.predictionHighIQRLower, data.predictionHighIQRUpper);
+        lowPyramid = new LodPyramid(lowSeries);
+        highPyramid = new LodPyramid(highSeries);
+        List<Series> series = allSeries();
+        boundsIndexes = new BoundsIndex[series.size()];
+        for (int i = 0; i < boundsIndexes.length; i++) {
+            boundsIndexes[i] = new BoundsIndex(series.get(i));
+        }
         calculateStats();
     }
 
     public Datapoint findClosestPoint(Point mousePos, int hoverRadius, PlotArea pa) {
         if (mousePos == null) return null;
 
-        Datapoint closest = null;
-        double minDistance = hoverRadius;
-
-        for(List<Datapoint> datapoints : Arrays.asList(highDatapoints, lowDatapoints, predictionLowDatapoints, predictionHighDatapoints)) {
-            for (Datapoint d : datapoints) {
-                Point hoverPosition = d.getHoverPosition(pa);
-                double distance = mousePos.distance(hoverPosition);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closest = d;
-                }
-            }
+        if (hoverGrid == null || !hoverGrid.matches(pa, hoverRadius)) {
+            hoverGrid = new HoverGrid(allSeries(), pa, hoverRadius);
         }
-        return closest;
+        return hoverGrid.closest(mousePos);
     }
 
 
-    public Bounds calculateBounds(Predicate<Datapoint> p) {
+    private List<Series> allSeries() {
+        return Arrays.asList(highSeries, lowSeries, predictionLowSeries, predictionHighSeries);
+    }
+
+    /**
+     * Bounds of every point strictly after the given time, Integer.MIN_VALUE for all of them.
+     */
+    public Bounds calculateBounds(int after) {
+        return after == Integer.MAX_VALUE ? calculateBounds(after, Integer.MIN_VALUE) : calculateBounds(after + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Bounds of the points from fromTime to toTime inclusive, padded by 3% of their mean price.
+     */
+    public Bounds calculateBounds(int fromTime, int toTime) {
         Bounds b = new Bounds();
 
         b.xMin = Integer.MAX_VALUE;
@@ -71,34 +93,25 @@ public class DataManager {
         b.yMax =  Integer.MIN_VALUE;
         b.yMin = Integer.MAX_VALUE;
 
-        long yMean = 0;
+        long priceSum = 0;
         long n = 0;
 
-        for(List<Datapoint> datapoints : Arrays.asList(highDatapoints, lowDatapoints, predictionLowDatapoints, predictionHighDatapoints)) {
-            for (Datapoint d : datapoints) {
-                if (p.test(d)) {
-                    yMean = (n * yMean + (long) d.price) / (n+1);
-                    n+=1;
-
-                    b.xMin = Math.min(b.xMin, d.time);
-                    b.xMax = Math.max(b.xMax, d.time);
-
-                    // Update price bounds
-                    b.yMin = Math.min(b.yMin, d.price);
-                    b.yMax = Math.max(b.yMax, d.price);
-
-                    // Check IQR bounds for prediction points
-                    if (d.type == Datapoint.Type.PREDICTION) {
-                        if (d.iqrLower != null) {
-                            b.yMin = Math.min(b.yMin, d.iqrLower);
-                        }
-                        if (d.iqrUpper != null) {
-                            b.yMax = Math.max(b.yMax, d.iqrUpper);
-                        }
-                    }
-                }
+        List<Series> series = allSeries();
+        for (int s = 0; s < series.size(); s++) {
+            Series points = series.get(s);
+            int from = points.firstAtOrAfter(fromTime);
+            int to = points.firstAfter(toTime);
+            if (from >= to) {
+                continue;
             }
-        }
+            b.xMin = Math.min(b.xMin, points.times[from]);
+            b.xMax = Math.max(b.xMax, points.times[to - 1]);
+            b.yMin = Math.min(b.yMin, boundsIndexes[s].min(from, to));
+            b.yMax = Math.max(b.yMax, boundsIndexes[s].max(from, to));
+            priceSum += boundsIndexes[s].priceSum(from, to);
+            n += to - from;
+        }
+        long yMean = n == 0 ? 0 : priceSum / n;
         int pricePadding = (int) (0.03 * yMean);
         if (pricePadding < 1) pricePadding = 1;
 
@@ -108,118 +121,33 @@ public class DataManager {
         return b;
     }
 
-    private void processDatapoints() {
-        highDatapoints.clear();
-        lowDatapoints.clear();
-        predictionHighDatapoints.clear();
-        predictionLowDatapoints.clear();
-        
-        // here we combine the hour / 5min / latest wiki price data points into a continuous dataset where hour points 
-        // transition into the 5min points that transition into the latest points. So we get increasingly finer granularity.
-        // We truncate the points correctly at the boundaries to ensure no overlap.
-
-        for (int i = 0; i < data.lowLatestTimes.length; i++) {
-            lowDatapoints.add(new Datapoint(data.lowLatestTimes[i], data.lowLatestPrices[i], true, Datapoint.Type.INSTA_SELL_BUY));
-        }
-        int fiveMinLowsCut;
-        if (!lowDatapoints.isEmpty()) {
-            fiveMinLowsCut = Constants.FIVE_MIN_SECONDS * (lowDatapoints.get(0).time / Constants.FIVE_MIN_SECONDS)  + Constants.FIVE_MIN_SECONDS;
-            lowDatapoints.removeIf((i) -> i.time < fiveMinLowsCut);
-        } else {
-            fiveMinLowsCut = Integer.MAX_VALUE;
-        }
-        for (int i = data.low5mTimes.length-1; i >= 0; i--) {
-            if (data.low5mTimes[i] < fiveMinLowsCut) {
-                lowDatapoints.add(0, new Datapoint(data.low5mTimes[i], data.low5mPrices[i], true, Datapoint.Type.FIVE_MIN_AVERAGE));
-            }
-        }
-        int oneHourLowsCut;
-        if (!lowDatapoints.isEmpty()) {
-            oneHourLowsCut = Constants.HOUR_SECONDS * (lowDatapoints.get(0).time / Constants.HOUR_SECONDS)  + Constants.HOUR_SECONDS;
-            lowDatapoints.removeIf((i) -> i.time < oneHourLowsCut);
-        } else {
-            oneHourLowsCut = Integer.MAX_VALUE;
-        }
-        for (int i = data.low1hTimes.length-1; i >= 0; i--) {
-            if (data.low1hTimes[i] < oneHourLowsCut) {
-                lowDatapoints.add(0, new Datapoint(data.low1hTimes[i], data.low1hPrices[i], true, Datapoint.Type.HOUR_AVERAGE));
-            }
-        }
-
-        for (int i = 0; i < data.highLatestTimes.length; i++) {
-            highDatapoints.add(new Datapoint(data.highLatestTimes[i], data.highLatestPrices[i], false, Datapoint.Type.INSTA_SELL_BUY));
-        }
-        int fiveMinHighsCut;
-        if (!highDatapoints.isEmpty()) {
-            fiveMinHighsCut = Constants.FIVE_MIN_SECONDS * (highDatapoints.get(0).time / Constants.FIVE_MIN_SECONDS)  + Constants.FIVE_MIN_SECONDS;
-            highDatapoints.removeIf((i) -> i.time < fiveMinHighsCut);
-        } else {
-            fiveMinHighsCut = Integer.MAX_VALUE;
-        }
-        for (int i = data.high5mTimes.length-1; i >= 0; i--) {
-            if (data.high5mTimes[i] < fiveMinHighsCut) {
-                highDatapoints.add(0, new Datapoint(data.high5mTimes[i], data.high5mPrices[i], false, Datapoint.Type.FIVE_MIN_AVERAGE));
-            }
-        }
-        int oneHourHighsCut;
-        if (!highDatapoints.isEmpty()) {
-            oneHourHighsCut = Constants.HOUR_SECONDS * (highDatapoints.get(0).time / Constants.HOUR_SECONDS)  + Constants.HOUR_SECONDS;
-            highDatapoints.removeIf((i) -> i.time < oneHourHighsCut);
-        } else {
-            oneHourHighsCut = Integer.MAX_VALUE;
-        }
-        for (int i = data.high1hTimes.length-1; i >= 0; i--) {
-            if (data.high1hTimes[i] < oneHourHighsCut) {
-                highDatapoints.add(0, new Datapoint(data.high1hTimes[i], data.high1hPrices[i], false, Datapoint.Type.HOUR_AVERAGE));
-            }
-        }
-        
-        // add the prediction data points
-        for (int i = 0; i < data.predictionTimes.length; i++) {
-            predictionLowDatapoints.add(new Datapoint(
-                    data.predictionTimes[i],
-                    data.predictionLowMeans[i],
-                    data.predictionLowIQRLower[i],
-                    data.predictionLowIQRUpper[i],
-                    true
-            ));
-            predictionHighDatapoints.add(new Datapoint(
-                    data.predictionTimes[i],
-                    data.predictionHighMeans[i],
-                    data.predictionHighIQRLower[i],
-                    data.predictionHighIQRUpper[i],
-                    false
-            ));
-        }
-    }
-
     private void calculateStats() {
         int cut24h = (int) Instant.now().minus(Duration.ofDays(1)).getEpochSecond();
         int cutWeek = (int) Instant.now().minus(Duration.ofDays(7)).getEpochSecond();
-        if (!lowDatapoints.isEmpty() && !highDatapoints.isEmpty()){
-            double priceCurrent = (lowDatapoints.get(lowDatapoints.size()-1).price *0.5 + highDatapoints.get(highDatapoints.size()-1).price *0.5);
-            double lowPrice24hAgo = lowDatapoints.stream().filter(i-> i.time > cut24h).findFirst().map(i -> (double) i.price).orElse(priceCurrent);
-            double highPrice24hAgo = highDatapoints.stream().filter(i-> i.time > cut24h).findFirst().map(i -> (double) i.price).orElse(priceCurrent);
+        if (!lowSeries.isEmpty() && !highSeries.isEmpty()){
+            double priceCurrent = (lowSeries.lastPrice() *0.5 + highSeries.lastPrice() *0.5);
+            double lowPrice24hAgo = priceAfter(lowSeries, cut24h, priceCurrent);
+            double highPrice24hAgo = priceAfter(highSeries, cut24h, priceCurrent);
             double price24hAgo = lowPrice24hAgo*0.5 + highPrice24hAgo*0.5;
             if (price24hAgo > 0 ) {
                 this.priceChange24H = (priceCurrent - price24hAgo) / price24hAgo;
             }
-            double lowPriceWeekAgo = lowDatapoints.stream().filter(i-> i.time > cutWeek).findFirst().map(i -> (double) i.price).orElse(priceCurrent);
-            double highPriceWeekAgo = highDatapoints.stream().filter(i-> i.time > cutWeek).findFirst().map(i -> (double) i.price).orElse(priceCurrent);
+            double lowPriceWeekAgo = priceAfter(lowSeries, cutWeek, priceCurrent);
+            double highPriceWeekAgo = priceAfter(highSeries, cutWeek, priceCurrent);
             double priceWeekAgo = lowPriceWeekAgo*0.5 + highPriceWeekAgo*0.5;
             if (priceWeekAgo > 0 ) {
                 this.priceChangeWeek = (priceCurrent - priceWeekAgo) / priceWeekAgo;
             }
         }
 
-        if(!highDatapoints.isEmpty()) {
-            lastHighTime = highDatapoints.get(highDatapoints.size()-1).time;
-            lastHighPrice = highDatapoints.get(highDatapoints.size()-1).price;
+        if(!highSeries.isEmpty()) {
+            lastHighTime = highSeries.lastTime();
+            lastHighPrice = highSeries.lastPrice();
         }
 
-        if(!lowDatapoints.isEmpty()) {
-            lastLowTime = lowDatapoints.get(lowDatapoints.size()-1).time;
-            lastLowPrice = lowDatapoints.get(lowDatapoints.size()-1).price;
+        if(!lowSeries.isEmpty()) {
+            lastLowTime = lowSeries.lastTime();
+            lastLowPrice = lowSeries.lastPrice();
         }
 
         margin = data.sellPrice - data.buyPrice;
@@ -227,21 +155,26 @@ public class DataManager {
         profit = margin - tax;
     }
 
-    public List<Datapoint> sellPriceDataPoint() {
-        return Collections.singletonList(new Datapoint(
+    private static double priceAfter(Series series, int time, double orElse) {
+        int i = series.firstAfter(time);
+        return i < series.size ? series.prices[i] : orElse;
+    }
+
+    public Series sellPriceDataPoint() {
+        return Series.single(
                 (int) Instant.now().getEpochSecond(),
                 (int) data.sellPrice,
                 false,
                 Datapoint.Type.PREDICTION
-        ));
+        );
     }
 
-    public List<Datapoint> buyPriceDataPoint() {
-        return Collections.singletonList(new Datapoint(
+    public Series buyPriceDataPoint() {
+        return Series.single(
                 (int) Instant.now().getEpochSecond(),
                 (int) data.buyPrice,
                 true,
                 Datapoint.Type.PREDICTION
-        ));
+        );
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.ui.graph.model.Data;
+import com.beagleflipper.util.MsgPackEncoder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import lombok.extern.slf4j.Slf4j;
+import okio.BufferedSink;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the most recent graph data for the last few suggested items so the server only has to send
+ * the price points newer than what we already have. The watermarks (the last time we hold for each
+ * series) are sent along with the suggestion request, and a response flagged as a delta is appended
+ * onto the cached arrays. A server that doesn't support deltas just keeps sending full data sets,
+ * which replace the cached entry.
+ */
+@Slf4j
+@Singleton
+public class GraphDataCache {
+
+    private static final int MAX_ITEMS = 16;
+
+    private final Map<Integer, Data> itemIdToData = new LinkedHashMap<Integer, Data>(MAX_ITEMS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Data> eldest) {
+            return size() > MAX_ITEMS;
+        }
+    };
+
+    public synchronized JsonArray watermarksJson() {
+        JsonArray watermarks = new JsonArray();
+        for (Data d : itemIdToData.values()) {
+            JsonObject w = new JsonObject();
+            w.addProperty("item_id", d.itemId);
+            w.addProperty("low_1h_time", last(d.low1hTimes));
+            w.addProperty("high_1h_time", last(d.high1hTimes));
+            w.addProperty("low_5m_time", last(d.low5mTimes));
+            w.addProperty("high_5m_time", last(d.high5mTimes));
+            w.addProperty("low_latest_time", last(d.lowLatestTimes));
+            w.addProperty("high_latest_time", last(d.highLatestTimes));
+            watermarks.add(w);
+        }
+        return watermarks;
+    }
+
+    public synchronized void writeWatermarks(BufferedSink sink) throws IOException {
+        MsgPackEncoder.writeArrayHeader(sink, itemIdToData.size());
+        for (Data d : itemIdToData.values()) {
+            new MsgPackEncoder.MapWriter()
+                    .put("item_id", d.itemId)
+                    .put("low_1h_time", last(d.low1hTimes))
+                    .put("high_1h_time", last(d.high1hTimes))
+                    .put("low_5m_time", last(d.low5mTimes))
+                    .put("high_5m_time", last(d.high5mTimes))
+                    .put("low_latest_time", last(d.lowLatestTimes))
+                    .put("high_latest_time", last(d.highLatestTimes))
+                    .writeTo(sink);
+        }
+    }
+
+    /**
+     * Takes graph data received from the server and returns the complete data set for the item. Full
+     * data sets replace whatever was cached, deltas are merged onto the cached entry.
+     */
+    public synchronized Data merge(Data received) {
+        if (received == null || received.loadingErrorMessage != null) {
+            return received;
+        }
+        if (!received.delta) {
+            itemIdToData.put(received.itemId, received);
+            return received;
+        }
+        Data base = itemIdToData.get(received.itemId);
+        if (base == null) {
+            // we no longer hold the entry the server based the delta on, not sending a watermark for
+            // this item on the next request will get us the full data set again
+            log.warn("received graph data delta for item {} which isn't cached", received.itemId);
+            Data d = new Data();
+            d.loadingErrorMessage = "There was an issue loading the graph data for this item.";
+            d.fromWaitSuggestion = received.fromWaitSuggestion;
+            return d;
+        }
+
+        Data merged = new Data();
+        merged.itemId = received.itemId;
+        merged.name = received.name != null ? received.name : base.name;
+        merged.dailyVolume = received.dailyVolume;
+        merged.sellPrice = received.sellPrice;
+        merged.buyPrice = received.buyPrice;
+        merged.fromWaitSuggestion = received.fromWaitSuggestion;
+
+        int[][] series;
+        series = append(base.low1hTimes, base.low1hPrices, received.low1hTimes, received.low1hPrices);
+        merged.low1hTimes = series[0];
+        merged.low1hPrices = series[1];
+        series = append(base.high1hTimes, base.high1hPrices, received.high1hTimes, received.high1hPrices);
+        merged.high1hTimes = series[0];
+        merged.high1hPrices = series[1];
+        series = append(base.low5mTimes, base.low5mPrices, received.low5mTimes, received.low5mPrices);
+        merged.low5mTimes = series[0];
+        merged.low5mPrices = series[1];
+        series = append(base.high5mTimes, base.high5mPrices, received.high5mTimes, received.high5mPrices);
+        merged.high5mTimes = series[0];
+        merged.high5mPrices = series[1];
+        series = append(base.lowLatestTimes, base.lowLatestPrices, received.lowLatestTimes, received.lowLatestPrices);
+        merged.lowLatestTimes = series[0];
+        merged.lowLatestPrices = series[1];
+        series = append(base.highLatestTimes, base.highLatestPrices, received.highLatestTimes, received.highLatestPrices);
+        merged.highLatestTimes = series[0];
+        merged.highLatestPrices = series[1];
+
+        // predictions are recomputed every time so they are always replaced rather than appended
+        boolean hasPredictions = received.predictionTimes != null;
+        Data predictions = hasPredictions ? received : base;
+        merged.predictionTimes = predictions.predictionTimes;
+        merged.predictionLowMeans = predictions.predictionLowMeans;
+        merged.predictionLowIQRUpper = predictions.predictionLowIQRUpper;
+        merged.predictionLowIQRLower = predictions.predictionLowIQRLower;
+        merged.predictionHighMeans = predictions.predictionHighMeans;
+        merged.predictionHighIQRUpper = predictions.predictionHighIQRUpper;
+        merged.predictionHighIQRLower = predictions.predictionHighIQRLower;
+
+        itemIdToData.put(merged.itemId, merged);
+        return merged;
+    }
+
+    public synchronized void clear() {
+        itemIdToData.clear();
+    }
+
+    /**
+     * Appends the new points onto the cached series, dropping the oldest cached points so the series
+     * keeps covering the same time span as the full data set it started from. The cached arrays are
+     * shared with data that may be on screen, so they are never modified in place.
+     */
+    static int[][] append(int[] baseTimes, int[] basePrices, int[] newTimes, int[] newPrices) {
+        if (newTimes == null || newPrices == null || newTimes.length == 0) {
+            return new int[][]{baseTimes, basePrices};
+        }
+        if (baseTimes == null || basePrices == null || baseTimes.length == 0) {
+            return new int[][]{newTimes, newPrices};
+        }
+        int baseLast = baseTimes[baseTimes.length - 1];
+        int newStart = 0;
+        while (newStart < newTimes.length && newTimes[newStart] <= baseLast) {
+            newStart++;
+        }
+        if (newStart == newTimes.length) {
+            return new int[][]{baseTimes, basePrices};
+        }
+        int span = baseLast - baseTimes[0];
+        int cutoff = newTimes[newTimes.length - 1] - span;
+        int baseStart = Arrays.binarySearch(baseTimes, cutoff);
+        if (baseStart < 0) {
+            baseStart = -baseStart - 1;
+        } else {
+            while (baseStart > 0 && baseTimes[baseStart - 1] == cutoff) {
+                baseStart--;
+            }
+        }
+
+        int keptBase = baseTimes.length - baseStart;
+        int added = newTimes.length - newStart;
+        int[] times = new int[keptBase + added];
+        int[] prices = new int[keptBase + added];
+        System.arraycopy(baseTimes, baseStart, times, 0, keptBase);
+        System.arraycopy(basePrices, baseStart, prices, 0, keptBase);
+        System.arraycopy(newTimes, newStart, times, keptBase, added);
+        System.arraycopy(newPrices, newStart, prices, keptBase, added);
+        return new int[][]{times, prices};
+    }
+
+    private static int last(int[] a) {
+        return a == null || a.length == 0 ? 0 : a[a.length - 1];
+    }
+}
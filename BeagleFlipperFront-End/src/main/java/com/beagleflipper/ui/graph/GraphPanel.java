@@ -2,11 +2,17 @@ package com.beagleflipper.ui.graph;
 
 import com.beagleflipper.manger.PriceGraphConfigManager;
 import com.beagleflipper.ui.graph.model.*;
+import lombok.extern.slf4j.Slf4j;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
 
+@Slf4j
 public class GraphPanel extends JPanel {
     public final String itemName;
 
@@ -22,6 +28,17 @@ public class GraphPanel extends JPanel {
     private Point mousePosition = new Point(0,0);
     private Datapoint hoveredPoint = null;
 
+    // grid, axes, series and predictions, redrawn only when the size, view, data or config change
+    private BufferedImage staticLayer;
+    private List<Object> staticLayerKey;
+
+    // paint timings, logged every LOG_EVERY_PAINTS paints
+    private static final int LOG_EVERY_PAINTS = 200;
+    private long paintCount = 0;
+    private long paintNanos = 0;
+    private long staticLayerRenders = 0;
+    private long staticLayerNanos = 0;
+
     public GraphPanel(DataManager dm, PriceGraphConfigManager configManager) {
         this.itemName = dm.data.name;
 
@@ -38,10 +55,10 @@ public class GraphPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         this.pa = new PlotArea();
-        zoomHandler.maxViewBounds = dataManager.calculateBounds((p) -> true);
-        zoomHandler.homeViewBounds = dataManager.calculateBounds((p) -> p.time > zoomHandler.maxViewBounds.xMax - 4 * Constants.DAY_SECONDS);
-        zoomHandler.weekViewBounds = dataManager.calculateBounds((p) -> p.time > zoomHandler.maxViewBounds.xMax - 7 * Constants.DAY_SECONDS);
-        zoomHandler.monthViewBounds = dataManager.calculateBounds((p) -> p.time > zoomHandler.maxViewBounds.xMax - 30 * Constants.DAY_SECONDS);
+        zoomHandler.maxViewBounds = dataManager.calculateBounds(Integer.MIN_VALUE);
+        zoomHandler.homeViewBounds = dataManager.calculateBounds(zoomHandler.maxViewBounds.xMax - 4 * Constants.DAY_SECONDS);
+        zoomHandler.weekViewBounds = dataManager.calculateBounds(zoomHandler.maxViewBounds.xMax - 7 * Constants.DAY_SECONDS);
+        zoomHandler.monthViewBounds = dataManager.calculateBounds(zoomHandler.maxViewBounds.xMax - 30 * Constants.DAY_SECONDS);
         pa.bounds = zoomHandler.homeViewBounds.copy();
         setupMouseListeners();
     }
@@ -116,7 +133,7 @@ public class GraphPanel extends JPanel {
                 if (zoomHandler.isSelecting()) {
                     setCursor(Cursor.getDefaultCursor());
                     zoomHandler.setSelectionEnd(pa.relativePoint(mousePosition));
-                    zoomHandler.applySelection(pa);
+                    zoomHandler.applySelection(pa, dataManager);
                     repaint();
                 }
             }
@@ -136,6 +153,7 @@ public class GraphPanel extends JPanel {
 
     @Override
     protected void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime();
 
         super.paintComponent(g);
         pa.w = getWidth() - pa.leftPadding - pa.rightPadding;
@@ -151,6 +169,62 @@ public class GraphPanel extends JPanel {
         g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
 
+        // everything but the mouse driven overlays comes from the cached layer
+        AffineTransform tx = g2.getTransform();
+        List<Object> key = staticLayerKey(config, tx);
+        if (staticLayer == null || !key.equals(staticLayerKey)) {
+            renderStaticLayer(data, config, tx);
+            staticLayerKey = key;
+        }
+        g2.drawImage(staticLayer, 0, 0, getWidth(), getHeight(), null);
+
+        Graphics2D plotAreaG2 = (Graphics2D) g2.create(pa.leftPadding, pa.topPadding, pa.w, pa.h);
+        zoomHandler.drawButtons(plotAreaG2, pa, pa.relativePoint(mousePosition));
+        zoomHandler.drawSelectionRectangle(plotAreaG2);
+
+        // Draw tooltip for hovered point
+        if (hoveredPoint != null) {
+            tooltip.draw(plotAreaG2, config, pa, hoveredPoint);
+        }
+        plotAreaG2.dispose();
+
+        paintNanos += System.nanoTime() - paintStart;
+        if (++paintCount % LOG_EVERY_PAINTS == 0) {
+            log.debug("graph for {} painted {} times, avg {}us, static layer rendered {} times, avg {}us",
+                    itemName, paintCount, paintNanos / paintCount / 1000,
+                    staticLayerRenders, staticLayerRenders == 0 ? 0 : staticLayerNanos / staticLayerRenders / 1000);
+        }
+    }
+
+    /**
+     * What the static layer depends on, it is re-rendered whenever any of it changes. The config is read
+     * field by field as the settings panel edits the same instance in place.
+     */
+    private List<Object> staticLayerKey(Config config, AffineTransform tx) {
+        return Arrays.asList(getWidth(), getHeight(), tx.getScaleX(), tx.getScaleY(), pa.bounds.copy(), dataManager,
+                config.connectPoints, config.lowColor, config.highColor, config.lowShadeColor, config.highShadeColor,
+                config.backgroundColor, config.plotAreaColor, config.textColor, config.axisColor, config.gridColor);
+    }
+
+    private void renderStaticLayer(Data data, Config config, AffineTransform tx) {
+        long start = System.nanoTime();
+        // rendered at device resolution so it stays sharp on scaled displays
+        int w = Math.max(1, (int) Math.ceil(getWidth() * tx.getScaleX()));
+        int h = Math.max(1, (int) Math.ceil(getHeight() * tx.getScaleY()));
+        if (staticLayer == null || staticLayer.getWidth() != w || staticLayer.getHeight() != h) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            staticLayer = gc != null ? gc.createCompatibleImage(w, h) : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        }
+
+        Graphics2D g2 = staticLayer.createGraphics();
+        g2.scale(tx.getScaleX(), tx.getScaleY());
+        g2.setFont(getFont());
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2.setColor(config.backgroundColor);
+        g2.fillRect(0, 0, getWidth(), getHeight());
+
         Graphics2D plotAreaG2 = (Graphics2D) g2.create(pa.leftPadding, pa.topPadding, pa.w, pa.h);
 
         // First draw the legend above the plot area
@@ -167,26 +241,32 @@ public class GraphPanel extends JPanel {
 
 
         int pointSize = dynamicPointSize(Config.BASE_POINT_SIZE, pa);
-        renderer.drawPoints(plotAreaG2, pa, dataManager.lowDatapoints, config.lowColor, pointSize);
-        renderer.drawPoints(plotAreaG2, pa, dataManager.highDatapoints, config.highColor, pointSize);
+        renderer.drawPoints(plotAreaG2, pa, dataManager.lowPyramid, config.lowColor, pointSize);
+        renderer.drawPoints(plotAreaG2, pa, dataManager.highPyramid, config.highColor, pointSize);
         if (config.connectPoints) {
-            renderer.drawLines(plotAreaG2, pa, dataManager.lowDatapoints, config.lowColor, Config.NORMAL_STROKE);
-            renderer.drawLines(plotAreaG2, pa, dataManager.highDatapoints, config.highColor, Config.NORMAL_STROKE);
+            renderer.drawLines(plotAreaG2, pa, dataManager.lowPyramid, config.lowColor, Config.NORMAL_STROKE);
+            renderer.drawLines(plotAreaG2, pa, dataManager.highPyramid, config.highColor, Config.NORMAL_STROKE);
         }
         renderer.drawStartPoints(plotAreaG2, pa, dataManager.buyPriceDataPoint(), Color.WHITE, pointSize);
         renderer.drawStartPoints(plotAreaG2, pa, dataManager.sellPriceDataPoint(), Color.WHITE, pointSize);
 
-        renderer.drawLines(plotAreaG2, pa, dataManager.predictionLowDatapoints, config.lowColor, Config.DOTTED_STROKE);
-        renderer.drawLines(plotAreaG2, pa, dataManager.predictionHighDatapoints, config.highColor, Config.DOTTED_STROKE);
+        renderer.drawLines(plotAreaG2, pa, dataManager.predictionLowSeries, config.lowColor, Config.DOTTED_STROKE);
+        renderer.drawLines(plotAreaG2, pa, dataManager.predictionHighSeries, config.highColor, Config.DOTTED_STROKE);
         renderer.drawPredictionIQR(plotAreaG2, config, pa, data.predictionTimes, data.predictionLowIQRLower, data.predictionLowIQRUpper, true);
         renderer.drawPredictionIQR(plotAreaG2, config, pa, data.predictionTimes, data.predictionHighIQRLower, data.predictionHighIQRUpper, false);
-        zoomHandler.drawButtons(plotAreaG2, pa, pa.relativePoint(mousePosition));
-        zoomHandler.drawSelectionRectangle(plotAreaG2);
 
-        // Draw tooltip for hovered point
-        if (hoveredPoint != null) {
-            tooltip.draw(plotAreaG2, config, pa, hoveredPoint);
-        }
+        plotAreaG2.dispose();
+        g2.dispose();
+        staticLayerRenders++;
+        staticLayerNanos += System.nanoTime() - start;
+    }
+
+    public long getPaintCount() {
+        return paintCount;
+    }
+
+    public long getStaticLayerRenderCount() {
+        return staticLayerRenders;
     }
 
     private int dynamicPointSize(int baseSize, PlotArea pa) {
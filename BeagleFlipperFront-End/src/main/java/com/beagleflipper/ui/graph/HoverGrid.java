@@ -0,0 +1,133 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.ui.graph.model.Constants;
+import com.beagleflipper.ui.graph.model.Datapoint;
+import com.beagleflipper.ui.graph.model.Series;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid over the screen positions of the points in view, with cells one hover radius wide, so
+ * finding the point under the mouse only looks at the nine cells around it. Only points within a hover
+ * radius of the plot area are indexed, anything further out is clipped from the plot anyway. Built once
+ * per view and reused until the plot area is resized or the bounds change.
+ */
+class HoverGrid {
+
+    private final int w;
+    private final int h;
+    private final int xMin;
+    private final int xMax;
+    private final int yMin;
+    private final int yMax;
+    private final int radius;
+
+    private final int cols;
+    private final int rows;
+    // head[cell] is the first entry in the cell, next[entry] the one after it, -1 ends the chain
+    private final int[] head;
+    private int[] next;
+    private int[] xs;
+    private int[] ys;
+    // which series and which point in it each entry is
+    private int[] seriesIdx;
+    private int[] pointIdx;
+    private int size = 0;
+    private final List<Series> series;
+
+    HoverGrid(List<Series> series, PlotArea pa, int radius) {
+        this.series = series;
+        this.w = pa.w;
+        this.h = pa.h;
+        this.xMin = pa.bounds.xMin;
+        this.xMax = pa.bounds.xMax;
+        this.yMin = pa.bounds.yMin;
+        this.yMax = pa.bounds.yMax;
+        this.radius = Math.max(1, radius);
+        this.cols = Math.max(0, w + 2 * this.radius) / this.radius + 1;
+        this.rows = Math.max(0, h + 2 * this.radius) / this.radius + 1;
+        this.head = new int[cols * rows];
+        Arrays.fill(head, -1);
+        next = new int[64];
+        xs = new int[64];
+        ys = new int[64];
+        seriesIdx = new int[64];
+        pointIdx = new int[64];
+
+        if (w <= 0 || h <= 0 || pa.bounds.xDelta() <= 0 || pa.bounds.yDelta() <= 0) {
+            return;
+        }
+        // averages hover half their interval to the right, so look an hour back as well
+        int margin = (int) Math.min(Integer.MAX_VALUE / 4, (long) pa.bounds.xDelta() * this.radius / w + 1);
+        int from = xMin - margin - Constants.HOUR_SECONDS;
+        int to = xMax + margin;
+        for (int s = 0; s < series.size(); s++) {
+            Series points = series.get(s);
+            int end = points.firstAfter(to);
+            for (int i = points.firstAtOrAfter(from); i < end; i++) {
+                add(s, i, pa);
+            }
+        }
+    }
+
+    boolean matches(PlotArea pa, int radius) {
+        return pa.w == w && pa.h == h && Math.max(1, radius) == this.radius
+                && pa.bounds.xMin == xMin && pa.bounds.xMax == xMax
+                && pa.bounds.yMin == yMin && pa.bounds.yMax == yMax;
+    }
+
+    /**
+     * The point closest to p within the hover radius, ties going to the point indexed first.
+     */
+    Datapoint closest(Point p) {
+        if (p == null) {
+            return null;
+        }
+        int cx = Math.floorDiv(p.x + radius, radius);
+        int cy = Math.floorDiv(p.y + radius, radius);
+        int closest = -1;
+        double minDistance = radius;
+        for (int row = Math.max(0, cy - 1); row <= Math.min(rows - 1, cy + 1); row++) {
+            for (int col = Math.max(0, cx - 1); col <= Math.min(cols - 1, cx + 1); col++) {
+                for (int e = head[row * cols + col]; e != -1; e = next[e]) {
+                    double distance = p.distance(xs[e], ys[e]);
+                    if (distance < minDistance || (distance == minDistance && closest != -1 && e < closest)) {
+                        minDistance = distance;
+                        closest = e;
+                    }
+                }
+            }
+        }
+        return closest == -1 ? null : series.get(seriesIdx[closest]).get(pointIdx[closest]);
+    }
+
+    private void add(int s, int i, PlotArea pa) {
+        Series points = series.get(s);
+        int x = points.hoverX(i, pa);
+        int y = pa.priceToY(points.prices[i]);
+        int cx = Math.floorDiv(x + radius, radius);
+        int cy = Math.floorDiv(y + radius, radius);
+        if (cx < 0 || cx >= cols || cy < 0 || cy >= rows) {
+            return;
+        }
+        if (size == xs.length) {
+            int n = size * 2;
+            next = Arrays.copyOf(next, n);
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+            seriesIdx = Arrays.copyOf(seriesIdx, n);
+            pointIdx = Arrays.copyOf(pointIdx, n);
+        }
+        // chains are walked newest first, which the tie break above accounts for
+        int cell = cy * cols + cx;
+        xs[size] = x;
+        ys[size] = y;
+        seriesIdx[size] = s;
+        pointIdx[size] = i;
+        next[size] = head[cell];
+        head[cell] = size;
+        size++;
+    }
+}
@@ -0,0 +1,95 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.ui.graph.model.Series;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Level of detail pyramid over a time sorted series. Level 0 is the series itself and each level above
+ * keeps only the lowest and highest priced point of every bucket, with the bucket width doubling per level.
+ * Drawing the level whose bucket is about one pixel column wide keeps every spike and dip on screen while
+ * the number of points drawn depends on the plot width rather than on how much history is loaded.
+ */
+public class LodPyramid {
+
+    static final int BASE_BUCKET_SECONDS = 60;
+    private static final int MAX_LEVELS = 24;
+
+    private final List<Series> levels = new ArrayList<>();
+
+    public LodPyramid(Series series) {
+        Series level = series;
+        levels.add(level);
+        for (int k = 0; k < MAX_LEVELS && level.size > 2; k++) {
+            Series next = downsample(level, BASE_BUCKET_SECONDS << k);
+            // sparse data doesn't shrink at small buckets, share the level instead of copying it
+            level = next.size == level.size ? level : next;
+            levels.add(level);
+        }
+    }
+
+    public int levelCount() {
+        return levels.size();
+    }
+
+    public Series level(int k) {
+        return levels.get(k);
+    }
+
+    /**
+     * The bucket width of level k, level 0 being the raw series.
+     */
+    static long bucketSeconds(int k) {
+        return k == 0 ? 0 : (long) BASE_BUCKET_SECONDS << (k - 1);
+    }
+
+    /**
+     * The coarsest level whose buckets are no wider than one pixel column of the plot area.
+     */
+    public Series levelFor(PlotArea pa) {
+        if (pa.w <= 0 || pa.bounds == null) {
+            return levels.get(0);
+        }
+        long secondsPerPixel = (long) pa.bounds.xDelta() / pa.w;
+        int k = 0;
+        while (k + 1 < levels.size() && bucketSeconds(k + 1) <= secondsPerPixel) {
+            k++;
+        }
+        return levels.get(k);
+    }
+
+    private static Series downsample(Series points, int bucketSeconds) {
+        int[] times = new int[points.size];
+        int[] prices = new int[points.size];
+        byte[] types = new byte[points.size];
+        int n = 0;
+        int i = 0;
+        while (i < points.size) {
+            int bucket = Math.floorDiv(points.times[i], bucketSeconds);
+            int minIdx = i;
+            int maxIdx = i;
+            for (i++; i < points.size && Math.floorDiv(points.times[i], bucketSeconds) == bucket; i++) {
+                if (points.prices[i] < points.prices[minIdx]) {
+                    minIdx = i;
+                }
+                if (points.prices[i] > points.prices[maxIdx]) {
+                    maxIdx = i;
+                }
+            }
+            // keep the two in time order so lines through the level still run left to right
+            int first = Math.min(minIdx, maxIdx);
+            int second = Math.max(minIdx, maxIdx);
+            times[n] = points.times[first];
+            prices[n] = points.prices[first];
+            types[n++] = points.types[first];
+            if (second != first) {
+                times[n] = points.times[second];
+                prices[n] = points.prices[second];
+                types[n++] = points.types[second];
+            }
+        }
+        return new Series(points.isLow, n, Arrays.copyOf(times, n), Arrays.copyOf(prices, n), Arrays.copyOf(types, n), null, null);
+    }
+}
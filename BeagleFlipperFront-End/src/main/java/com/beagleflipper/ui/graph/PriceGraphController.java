@@ -1,7 +1,7 @@
 package com.beagleflipper.ui.graph;
 
-import com.beagleflipper.controller.ApiRequestHandler;
 import com.beagleflipper.controller.BeagleFlipperConfig;
+import com.beagleflipper.controller.ItemPriceCache;
 import com.beagleflipper.manger.PriceGraphConfigManager;
 import com.beagleflipper.model.ItemPrice;
 import com.beagleflipper.model.OsrsLoginManager;
@@ -38,7 +38,7 @@ public class PriceGraphController {
     // dependencies
     private final PriceGraphConfigManager configManager;
     private final BeagleFlipperConfig copilotConfig;
-    private final ApiRequestHandler apiRequestHandler;
+    private final ItemPriceCache itemPriceCache;
     private final OsrsLoginManager osrsLoginManager;
     private final ItemManager itemManager;
 
@@ -110,7 +110,7 @@ public class PriceGraphController {
             setUserItemGraphData(d);
         };
         ItemComposition item = itemManager.getItemComposition(itemId);
-        apiRequestHandler.asyncGetItemPriceWithGraphData(itemId, osrsLoginManager.getPlayerDisplayName(), consumer);
+        itemPriceCache.getItemPriceWithGraphData(itemId, osrsLoginManager.getPlayerDisplayName(), consumer);
         showPriceGraph(item.getName(), false);
     }
 
@@ -299,10 +299,10 @@ public class PriceGraphController {
             // if it's the same item just update the data and repaint
             DataManager dm = new DataManager(data);
             graphPanel.dataManager = dm;
-            graphPanel.zoomHandler.maxViewBounds = dm.calculateBounds((p) -> true);
-            graphPanel.zoomHandler.homeViewBounds = dm.calculateBounds((p) -> p.time > graphPanel.zoomHandler.maxViewBounds.xMax - 4 * Constants.DAY_SECONDS);
-            graphPanel.zoomHandler.weekViewBounds = dm.calculateBounds((p) -> p.time > graphPanel.zoomHandler.maxViewBounds.xMax - 7 * Constants.DAY_SECONDS);
-            graphPanel.zoomHandler.monthViewBounds = dm.calculateBounds((p) -> p.time > graphPanel.zoomHandler.maxViewBounds.xMax - 30 * Constants.DAY_SECONDS);
+            graphPanel.zoomHandler.maxViewBounds = dm.calculateBounds(Integer.MIN_VALUE);
+            graphPanel.zoomHandler.homeViewBounds = dm.calculateBounds(graphPanel.zoomHandler.maxViewBounds.xMax - 4 * Constants.DAY_SECONDS);
+            graphPanel.zoomHandler.weekViewBounds = dm.calculateBounds(graphPanel.zoomHandler.maxViewBounds.xMax - 7 * Constants.DAY_SECONDS);
+            graphPanel.zoomHandler.monthViewBounds = dm.calculateBounds(graphPanel.zoomHandler.maxViewBounds.xMax - 30 * Constants.DAY_SECONDS);
             graphPanel.repaint();
             return;
         }
@@ -4,7 +4,6 @@ import com.beagleflipper.ui.graph.model.*;
 
 import java.awt.*;
 import java.awt.geom.Path2D;
-import java.util.List;
 
 public class RenderV2 {
 
@@ -50,14 +49,11 @@ public class RenderV2 {
         g2.setColor(config.textColor);
         FontMetrics metrics = g2.getFontMetrics();
 
-        java.text.SimpleDateFormat dateFormat = new java.text.SimpleDateFormat("d MMM");
-        java.text.SimpleDateFormat timeFormat = new java.text.SimpleDateFormat("HH:mm");
-
         // Draw date labels (longer ticks)
         for (int time : xAxis.dateOnlyTickTimes) {
             int x = pa.timeToX(time);
             g2.drawLine(pa.leftPadding + x, pa.topPadding + pa.h, pa.leftPadding + x, pa.topPadding + pa.h + Config.TICK_SIZE * 2);
-            String label = dateFormat.format(new java.util.Date(time * 1000L));
+            String label = Constants.DAY_DATE_FORMAT.format(new java.util.Date(time * 1000L));
             int labelWidth = metrics.stringWidth(label);
             g2.drawString(label, pa.leftPadding + x - labelWidth / 2, pa.topPadding + pa.h + Config.TICK_SIZE * 2 + 9 + metrics.getHeight());
         }
@@ -68,7 +64,7 @@ public class RenderV2 {
 
             g2.drawLine(pa.leftPadding +x, pa.topPadding + pa.h, pa.leftPadding +x, pa.topPadding +  pa.h + Config.TICK_SIZE);
 
-            String label = timeFormat.format(new java.util.Date(time * 1000L));
+            String label = Constants.TIME_OF_DAY_FORMAT.format(new java.util.Date(time * 1000L));
             int labelWidth = metrics.stringWidth(label);
             g2.drawString(label, pa.leftPadding + x - labelWidth / 2, pa.topPadding +  pa.h + Config.TICK_SIZE + metrics.getHeight());
         }
@@ -134,12 +130,19 @@ public class RenderV2 {
         }
     }
 
+    /**
+     * Draws the level of the pyramid matching the current zoom, so the cost depends on the plot width.
+     */
+    public void drawLines(Graphics2D plotAreaG2, PlotArea pa, LodPyramid pyramid, Color color, Stroke stroke) {
+        drawLines(plotAreaG2, pa, pyramid.levelFor(pa), color, stroke);
+    }
+
     public void drawLines(Graphics2D plotAreaG2,
                           PlotArea pa,
-                          List<Datapoint> datapoints,
+                          Series series,
                           Color color,
                           Stroke stroke) {
-        if (datapoints.isEmpty()) return;
+        if (series.isEmpty()) return;
 
         // Set the specified stroke and color
         plotAreaG2.setStroke(stroke);
@@ -152,14 +155,18 @@ public class RenderV2 {
         // Create path for line segments
         java.awt.geom.Path2D.Float path = new java.awt.geom.Path2D.Float();
 
+        // only the points in view plus one either side, for the segments crossing the edges
+        int from = Math.max(0, series.firstAtOrAfter(pa.bounds.xMin) - 1);
+        int to = Math.min(series.size, series.firstAfter(pa.bounds.xMax) + 1);
+
         // Start the path at the first point
-        int x = pa.timeToX(datapoints.get(0).time);
-        int y = pa.priceToY(datapoints.get(0).price);
+        int x = pa.timeToX(series.times[from]);
+        int y = pa.priceToY(series.prices[from]);
         path.moveTo(x, y);
 
-        for (Datapoint d : datapoints.subList(1, datapoints.size())) {
-            x = pa.timeToX(d.time);
-            y = pa.priceToY(d.price);
+        for (int i = from + 1; i < to; i++) {
+            x = pa.timeToX(series.times[i]);
+            y = pa.priceToY(series.prices[i]);
             path.lineTo(x, y);
         }
 
@@ -169,7 +176,7 @@ public class RenderV2 {
 
     public void drawStartPoints(Graphics2D plotAreaG2,
                                 PlotArea pa,
-                                List<Datapoint> startPoints,
+                                Series startPoints,
                                 Color color,
                                 int size
     ) {
@@ -186,14 +193,12 @@ public class RenderV2 {
         plotAreaG2.setClip(0, 0, pa.w, pa.h);
 
         // Draw each start point as a filled oval
-        for (Datapoint d : startPoints) {
-            if (d.time < pa.bounds.xMin || d.time > pa.bounds.xMax) {
-                continue;
-            }
+        int end = startPoints.firstAfter(pa.bounds.xMax);
+        for (int i = startPoints.firstAtOrAfter(pa.bounds.xMin); i < end; i++) {
 
             // Get current point coordinates
-            int x = pa.timeToX(d.time);
-            int y = pa.priceToY(d.price);
+            int x = pa.timeToX(startPoints.times[i]);
+            int y = pa.priceToY(startPoints.prices[i]);
 
             // Draw an asterisk (*) at the point
             // Save the original stroke
@@ -227,13 +232,17 @@ public class RenderV2 {
         plotAreaG2.setColor(originalColor);
     }
 
+    public void drawPoints(Graphics2D plotAreaG2, PlotArea pa, LodPyramid pyramid, Color color, int size) {
+        drawPoints(plotAreaG2, pa, pyramid.levelFor(pa), color, size);
+    }
+
     public void drawPoints(Graphics2D plotAreaG2,
                             PlotArea pa,
-                            List<Datapoint> datapoints,
+                            Series series,
                             Color color,
                             int size
     ) {
-        if (datapoints.isEmpty()) return;
+        if (series.isEmpty()) return;
 
         // Save original color
         Color originalColor = plotAreaG2.getColor();
@@ -246,25 +255,24 @@ public class RenderV2 {
         plotAreaG2.setClip(0, 0, pa.w, pa.h);
 
         // Draw each point as a filled oval
-        for (Datapoint d : datapoints) {
-            if (d.time < pa.bounds.xMin || d.time > pa.bounds.xMax) {
-                continue;
-            }
+        int end = series.firstAfter(pa.bounds.xMax);
+        for (int i = series.firstAtOrAfter(pa.bounds.xMin); i < end; i++) {
+            Datapoint.Type type = series.type(i);
 
             // Get current point coordinates
-            int x = pa.timeToX(d.time);
-            int y = pa.priceToY(d.price);
+            int x = pa.timeToX(series.times[i]);
+            int y = pa.priceToY(series.prices[i]);
 
             // Calculate the top-left corner for the oval (centered on x,y)
             int ovalX = x - size / 2;
             int ovalY = y - size / 2;
 
-            if (d.type == Datapoint.Type.PREDICTION || d.type == Datapoint.Type.INSTA_SELL_BUY) {
+            if (type == Datapoint.Type.PREDICTION || type == Datapoint.Type.INSTA_SELL_BUY) {
                 // filled oval for latest price points
                 plotAreaG2.fillOval(ovalX, ovalY, size, size);
             } else {
                 // rectangle for 5m/1h averages
-                int timeDelta = d.type == Datapoint.Type.FIVE_MIN_AVERAGE ? Constants.FIVE_MIN_SECONDS : Constants.HOUR_SECONDS;
+                int timeDelta = type == Datapoint.Type.FIVE_MIN_AVERAGE ? Constants.FIVE_MIN_SECONDS : Constants.HOUR_SECONDS;
                 int w = pa.timeDeltaToXDelta(timeDelta);
                 plotAreaG2.fillRect(x, y, w + size, size);
             }
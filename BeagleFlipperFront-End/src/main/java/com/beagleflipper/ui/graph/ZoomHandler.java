@@ -15,6 +15,7 @@ public class ZoomHandler {
 
     private static final int MIN_TIME_DELTA = 60*60;
     private static final int MIN_PRICE_DELTA = 5;
+    private static final int AUTOFIT_MAX_SELECTION_HEIGHT = 4;
     @Setter
     private Point selectionStart = null;
     @Setter
@@ -39,7 +40,7 @@ public class ZoomHandler {
         isSelecting = true;
     }
 
-    public void applySelection(PlotArea pa) {
+    public void applySelection(PlotArea pa, DataManager dm) {
         if (selectionStart == null || selectionEnd == null) return;
 
         int selectionX1 = Math.max(Math.min(selectionStart.x, selectionEnd.x), 0);
@@ -60,6 +61,15 @@ public class ZoomHandler {
             return;
         }
 
+        // a flat, sideways drag zooms time only and fits the prices to what is in the new window
+        if (selectionY2 - selectionY1 < AUTOFIT_MAX_SELECTION_HEIGHT && dm != null) {
+            Bounds fit = dm.calculateBounds(newTimeMin, newTimeMax);
+            if (fit.xMin <= fit.xMax) {
+                newPriceMin = fit.yMin;
+                newPriceMax = fit.yMax;
+            }
+        }
+
         if (newPriceMax - newPriceMin < MIN_PRICE_DELTA) {
             log.debug("zoomed price delta {}s too small", newPriceMax - newPriceMin);
             cancelSelection();
@@ -1,10 +1,12 @@
 package com.beagleflipper.ui.graph.model;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 
 import java.time.Instant;
 
 @AllArgsConstructor
+@EqualsAndHashCode
 public class Bounds {
     public int xMin;
     public int xMax;
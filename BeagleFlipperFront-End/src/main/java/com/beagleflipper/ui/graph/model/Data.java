@@ -3,9 +3,64 @@ package com.beagleflipper.ui.graph.model;
 import com.beagleflipper.util.MsgPackUtil;
 import com.google.gson.annotations.SerializedName;
 import lombok.Getter;
-import java.nio.ByteBuffer;
+import okio.BufferedSource;
+import okio.Options;
+
+import java.io.IOException;
 
 public class Data {
+    private static final int KEY_LOW_1H_TIMES = 0;
+    private static final int KEY_LOW_1H_PRICES = 1;
+    private static final int KEY_HIGH_1H_TIMES = 2;
+    private static final int KEY_HIGH_1H_PRICES = 3;
+    private static final int KEY_LOW_5M_TIMES = 4;
+    private static final int KEY_LOW_5M_PRICES = 5;
+    private static final int KEY_HIGH_5M_TIMES = 6;
+    private static final int KEY_HIGH_5M_PRICES = 7;
+    private static final int KEY_LOW_LATEST_TIMES = 8;
+    private static final int KEY_LOW_LATEST_PRICES = 9;
+    private static final int KEY_HIGH_LATEST_TIMES = 10;
+    private static final int KEY_HIGH_LATEST_PRICES = 11;
+    private static final int KEY_PREDICTION_TIMES = 12;
+    private static final int KEY_PREDICTION_LOW_MEANS = 13;
+    private static final int KEY_PREDICTION_LOW_IQR_UPPER = 14;
+    private static final int KEY_PREDICTION_LOW_IQR_LOWER = 15;
+    private static final int KEY_PREDICTION_HIGH_MEANS = 16;
+    private static final int KEY_PREDICTION_HIGH_IQR_UPPER = 17;
+    private static final int KEY_PREDICTION_HIGH_IQR_LOWER = 18;
+    private static final int KEY_ITEM_ID = 19;
+    private static final int KEY_NAME = 20;
+    private static final int KEY_DAILY_VOLUME = 21;
+    private static final int KEY_SELL_PRICE = 22;
+    private static final int KEY_BUY_PRICE = 23;
+    private static final int KEY_DELTA = 24;
+    private static final Options KEYS = MsgPackUtil.keyTable(
+            "l1ht",
+            "l1hp",
+            "h1ht",
+            "h1hp",
+            "l5mt",
+            "l5mp",
+            "h5mt",
+            "h5mp",
+            "llt",
+            "llp",
+            "hlt",
+            "hlp",
+            "pt",
+            "plm",
+            "pliu",
+            "plil",
+            "phm",
+            "phiu",
+            "phil",
+            "id",
+            "n",
+            "dv",
+            "sp",
+            "bp",
+            "dlt");
+
 
     @Getter
     public String loadingErrorMessage;
@@ -88,91 +143,97 @@ public class Data {
     @SerializedName("buy_price")
     public long buyPrice;
 
+    // set when the price series only hold the points newer than the watermarks we sent
+    @SerializedName("delta")
+    public boolean delta;
 
-    public static Data fromMsgPack(ByteBuffer b) {
+
+    public static Data fromMsgPack(BufferedSource b) throws IOException {
         Data d = new Data();
         Integer mapSize = MsgPackUtil.decodeMapSize(b);
         if(mapSize == null) {
             return null;
         }
         for (int i = 0; i < mapSize; i++) {
-            String key = (String) MsgPackUtil.decodePrimitive(b);
-            switch (key) {
-                case "l1ht":
+            switch (MsgPackUtil.readKeyId(b, KEYS)) {
+                case KEY_LOW_1H_TIMES:
                     d.low1hTimes = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "l1hp":
+                case KEY_LOW_1H_PRICES:
                     d.low1hPrices = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "h1ht":
+                case KEY_HIGH_1H_TIMES:
                     d.high1hTimes = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "h1hp":
+                case KEY_HIGH_1H_PRICES:
                     d.high1hPrices = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "l5mt":
+                case KEY_LOW_5M_TIMES:
                     d.low5mTimes = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "l5mp":
+                case KEY_LOW_5M_PRICES:
                     d.low5mPrices = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "h5mt":
+                case KEY_HIGH_5M_TIMES:
                     d.high5mTimes = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "h5mp":
+                case KEY_HIGH_5M_PRICES:
                     d.high5mPrices = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "llt":
+                case KEY_LOW_LATEST_TIMES:
                     d.lowLatestTimes = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "llp":
+                case KEY_LOW_LATEST_PRICES:
                     d.lowLatestPrices = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "hlt":
+                case KEY_HIGH_LATEST_TIMES:
                     d.highLatestTimes = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "hlp":
+                case KEY_HIGH_LATEST_PRICES:
                     d.highLatestPrices = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "pt":
+                case KEY_PREDICTION_TIMES:
                     d.predictionTimes = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "plm":
+                case KEY_PREDICTION_LOW_MEANS:
                     d.predictionLowMeans = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "pliu":
+                case KEY_PREDICTION_LOW_IQR_UPPER:
                     d.predictionLowIQRUpper = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "plil":
+                case KEY_PREDICTION_LOW_IQR_LOWER:
                     d.predictionLowIQRLower = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "phm":
+                case KEY_PREDICTION_HIGH_MEANS:
                     d.predictionHighMeans = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "phiu":
+                case KEY_PREDICTION_HIGH_IQR_UPPER:
                     d.predictionHighIQRUpper = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "phil":
+                case KEY_PREDICTION_HIGH_IQR_LOWER:
                     d.predictionHighIQRLower = MsgPackUtil.decodeInt32Array(b);
                     break;
-                case "id":
-                    d.itemId =  (int) (long)MsgPackUtil.decodePrimitive(b);
+                case KEY_ITEM_ID:
+                    d.itemId = MsgPackUtil.readInt(b);
+                    break;
+                case KEY_NAME:
+                    d.name = MsgPackUtil.readStringOrNull(b);
                     break;
-                case "n":
-                    d.name = (String) MsgPackUtil.decodePrimitive(b);
+                case KEY_DAILY_VOLUME:
+                    d.dailyVolume = MsgPackUtil.readDouble(b);
                     break;
-                case "dv":
-                    d.dailyVolume = (double) MsgPackUtil.decodePrimitive(b);
+                case KEY_SELL_PRICE:
+                    d.sellPrice = MsgPackUtil.readLong(b);
                     break;
-                case "sp":
-                    d.sellPrice = (long) (long) MsgPackUtil.decodePrimitive(b);
+                case KEY_BUY_PRICE:
+                    d.buyPrice = MsgPackUtil.readLong(b);
                     break;
-                case "bp":
-                    d.buyPrice = (long) MsgPackUtil.decodePrimitive(b);
+                case KEY_DELTA:
+                    d.delta = MsgPackUtil.readBoolean(b);
                     break;
                 default:
                     // discard value for unrecognised key
-                    MsgPackUtil.decodePrimitive(b);
+                    MsgPackUtil.skipValue(b);
             }
         }
 
@@ -0,0 +1,169 @@
+package com.beagleflipper.ui.graph.model;
+
+import com.beagleflipper.ui.graph.PlotArea;
+
+import java.util.Arrays;
+
+/**
+ * A time sorted price series held as parallel primitive arrays, so drawing, hovering and bounds
+ * calculations walk ints rather than {@link Datapoint} objects. A {@link Datapoint} is only created for
+ * the single point a tooltip is shown for.
+ */
+public class Series {
+
+    private static final Datapoint.Type[] TYPES = Datapoint.Type.values();
+
+    public final boolean isLow;
+    public final int size;
+    public final int[] times;
+    public final int[] prices;
+    // Datapoint.Type ordinals
+    public final byte[] types;
+    // only set for prediction series
+    public final int[] iqrLower;
+    public final int[] iqrUpper;
+
+    public Series(boolean isLow, int size, int[] times, int[] prices, byte[] types, int[] iqrLower, int[] iqrUpper) {
+        this.isLow = isLow;
+        this.size = size;
+        this.times = times;
+        this.prices = prices;
+        this.types = types;
+        this.iqrLower = iqrLower;
+        this.iqrUpper = iqrUpper;
+    }
+
+    public static Series single(int time, int price, boolean isLow, Datapoint.Type type) {
+        return new Series(isLow, 1, new int[]{time}, new int[]{price}, new byte[]{(byte) type.ordinal()}, null, null);
+    }
+
+    public static Series prediction(boolean isLow, int[] times, int[] means, int[] iqrLower, int[] iqrUpper) {
+        byte[] types = new byte[times.length];
+        Arrays.fill(types, (byte) Datapoint.Type.PREDICTION.ordinal());
+        return new Series(isLow, times.length, times, means, types, iqrLower, iqrUpper);
+    }
+
+    /**
+     * Joins the hour, 5 minute and latest price points into one continuous series where the hour points
+     * run into the 5 minute points that run into the latest points, so granularity gets finer towards now.
+     * Points are cut at the 5 minute / hour boundaries so the sources never overlap. One linear pass over
+     * each source array.
+     */
+    public static Series stitch(boolean isLow, int[] hourTimes, int[] hourPrices, int[] fiveMinTimes, int[] fiveMinPrices,
+                                int[] latestTimes, int[] latestPrices) {
+        int fiveMinCut = latestTimes.length > 0
+                ? Constants.FIVE_MIN_SECONDS * (latestTimes[0] / Constants.FIVE_MIN_SECONDS) + Constants.FIVE_MIN_SECONDS
+                : Integer.MAX_VALUE;
+
+        // the hour cut is taken from whichever point would lead the series once the 5 minute points are in
+        int first = 0;
+        boolean hasFirst = false;
+        for (int i = 0; i < fiveMinTimes.length && !hasFirst; i++) {
+            if (fiveMinTimes[i] < fiveMinCut) {
+                first = fiveMinTimes[i];
+                hasFirst = true;
+            }
+        }
+        for (int i = 0; i < latestTimes.length && !hasFirst; i++) {
+            if (latestTimes[i] >= fiveMinCut) {
+                first = latestTimes[i];
+                hasFirst = true;
+            }
+        }
+        int hourCut = hasFirst
+                ? Constants.HOUR_SECONDS * (first / Constants.HOUR_SECONDS) + Constants.HOUR_SECONDS
+                : Integer.MAX_VALUE;
+
+        int capacity = hourTimes.length + fiveMinTimes.length + latestTimes.length;
+        int[] times = new int[capacity];
+        int[] prices = new int[capacity];
+        byte[] types = new byte[capacity];
+        int n = 0;
+        for (int i = 0; i < hourTimes.length; i++) {
+            if (hourTimes[i] < hourCut) {
+                times[n] = hourTimes[i];
+                prices[n] = hourPrices[i];
+                types[n++] = (byte) Datapoint.Type.HOUR_AVERAGE.ordinal();
+            }
+        }
+        for (int i = 0; i < fiveMinTimes.length; i++) {
+            if (fiveMinTimes[i] < fiveMinCut && fiveMinTimes[i] >= hourCut) {
+                times[n] = fiveMinTimes[i];
+                prices[n] = fiveMinPrices[i];
+                types[n++] = (byte) Datapoint.Type.FIVE_MIN_AVERAGE.ordinal();
+            }
+        }
+        for (int i = 0; i < latestTimes.length; i++) {
+            if (latestTimes[i] >= fiveMinCut && latestTimes[i] >= hourCut) {
+                times[n] = latestTimes[i];
+                prices[n] = latestPrices[i];
+                types[n++] = (byte) Datapoint.Type.INSTA_SELL_BUY.ordinal();
+            }
+        }
+        return new Series(isLow, n, times, prices, types, null, null);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Datapoint.Type type(int i) {
+        return TYPES[types[i]];
+    }
+
+    public int lastTime() {
+        return times[size - 1];
+    }
+
+    public int lastPrice() {
+        return prices[size - 1];
+    }
+
+    /**
+     * Materialises point i, for the tooltip.
+     */
+    public Datapoint get(int i) {
+        if (iqrLower != null) {
+            return new Datapoint(times[i], prices[i], iqrLower[i], iqrUpper[i], isLow);
+        }
+        return new Datapoint(times[i], prices[i], isLow, type(i));
+    }
+
+    /**
+     * The index of the first point at or after the given time, or size if there is none.
+     */
+    public int firstAtOrAfter(int time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The index of the first point strictly after the given time, or size if there is none.
+     */
+    public int firstAfter(int time) {
+        return time == Integer.MAX_VALUE ? size : firstAtOrAfter(time + 1);
+    }
+
+    /**
+     * Screen x of point i's hover target, averages hover over the middle of their interval.
+     */
+    public int hoverX(int i, PlotArea pa) {
+        int x = pa.timeToX(times[i]);
+        byte type = types[i];
+        if (type == Datapoint.Type.FIVE_MIN_AVERAGE.ordinal()) {
+            x += pa.timeDeltaToXDelta(Constants.FIVE_MIN_SECONDS / 2);
+        } else if (type == Datapoint.Type.HOUR_AVERAGE.ordinal()) {
+            x += pa.timeDeltaToXDelta(Constants.HOUR_SECONDS / 2);
+        }
+        return x;
+    }
+}
@@ -0,0 +1,201 @@
+package com.beagleflipper.util;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Utf8;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes msgpack straight into an okio sink, the counterpart of {@link MsgPackUtil} for request bodies.
+ * The layout mirrors the json requests (same keys, same nesting) so the server can decode either into
+ * the same structure.
+ */
+public class MsgPackEncoder {
+
+    public static final String CONTENT_TYPE = "application/x-msgpack";
+
+    public static void writeNil(BufferedSink sink) throws IOException {
+        sink.writeByte(0xC0);
+    }
+
+    public static void writeBoolean(BufferedSink sink, boolean value) throws IOException {
+        sink.writeByte(value ? 0xC3 : 0xC2);
+    }
+
+    public static void writeLong(BufferedSink sink, long value) throws IOException {
+        if (value >= 0) {
+            if (value <= 0x7F) {
+                // positive fixint
+                sink.writeByte((int) value);
+            } else if (value <= 0xFF) {
+                sink.writeByte(0xCC);
+                sink.writeByte((int) value);
+            } else if (value <= 0xFFFF) {
+                sink.writeByte(0xCD);
+                sink.writeShort((int) value);
+            } else if (value <= 0xFFFFFFFFL) {
+                sink.writeByte(0xCE);
+                sink.writeInt((int) value);
+            } else {
+                sink.writeByte(0xCF);
+                sink.writeLong(value);
+            }
+        } else {
+            if (value >= -32) {
+                // negative fixint
+                sink.writeByte((int) value);
+            } else if (value >= Byte.MIN_VALUE) {
+                sink.writeByte(0xD0);
+                sink.writeByte((int) value);
+            } else if (value >= Short.MIN_VALUE) {
+                sink.writeByte(0xD1);
+                sink.writeShort((int) value);
+            } else if (value >= Integer.MIN_VALUE) {
+                sink.writeByte(0xD2);
+                sink.writeInt((int) value);
+            } else {
+                sink.writeByte(0xD3);
+                sink.writeLong(value);
+            }
+        }
+    }
+
+    public static void writeLong(BufferedSink sink, Long value) throws IOException {
+        if (value == null) {
+            writeNil(sink);
+        } else {
+            writeLong(sink, value.longValue());
+        }
+    }
+
+    public static void writeDouble(BufferedSink sink, double value) throws IOException {
+        sink.writeByte(0xCB);
+        sink.writeLong(Double.doubleToLongBits(value));
+    }
+
+    public static void writeString(BufferedSink sink, String value) throws IOException {
+        if (value == null) {
+            writeNil(sink);
+            return;
+        }
+        int length = (int) Utf8.size(value);
+        if (length <= 0x1F) {
+            sink.writeByte(0xA0 | length);
+        } else if (length <= 0xFF) {
+            sink.writeByte(0xD9);
+            sink.writeByte(length);
+        } else if (length <= 0xFFFF) {
+            sink.writeByte(0xDA);
+            sink.writeShort(length);
+        } else {
+            sink.writeByte(0xDB);
+            sink.writeInt(length);
+        }
+        sink.writeUtf8(value);
+    }
+
+    public static void writeArrayHeader(BufferedSink sink, int size) throws IOException {
+        if (size <= 0x0F) {
+            sink.writeByte(0x90 | size);
+        } else if (size <= 0xFFFF) {
+            sink.writeByte(0xDC);
+            sink.writeShort(size);
+        } else {
+            sink.writeByte(0xDD);
+            sink.writeInt(size);
+        }
+    }
+
+    public static void writeMapHeader(BufferedSink sink, int size) throws IOException {
+        if (size <= 0x0F) {
+            sink.writeByte(0x80 | size);
+        } else if (size <= 0xFFFF) {
+            sink.writeByte(0xDE);
+            sink.writeShort(size);
+        } else {
+            sink.writeByte(0xDF);
+            sink.writeInt(size);
+        }
+    }
+
+    public static void writeIntList(BufferedSink sink, Collection<Integer> values) throws IOException {
+        if (values == null) {
+            writeNil(sink);
+            return;
+        }
+        writeArrayHeader(sink, values.size());
+        for (Integer v : values) {
+            writeLong(sink, v == null ? null : v.longValue());
+        }
+    }
+
+    /**
+     * Writes an id to amount map the way gson does, with the ids as string keys.
+     */
+    public static void writeIdToAmountMap(BufferedSink sink, Map<Integer, Long> map) throws IOException {
+        if (map == null) {
+            writeNil(sink);
+            return;
+        }
+        writeMapHeader(sink, map.size());
+        for (Map.Entry<Integer, Long> e : map.entrySet()) {
+            writeString(sink, String.valueOf(e.getKey()));
+            writeLong(sink, e.getValue());
+        }
+    }
+
+    /**
+     * Collects the entries of a map whose size isn't known up front. The entries are written into an
+     * internal buffer and moved (not copied) behind the map header once the map is complete.
+     */
+    public static class MapWriter {
+        private final Buffer body = new Buffer();
+        private int size = 0;
+
+        /**
+         * Writes the key and returns the sink the caller must write exactly one value into.
+         */
+        public BufferedSink key(String key) throws IOException {
+            size++;
+            writeString(body, key);
+            return body;
+        }
+
+        public MapWriter put(String key, long value) throws IOException {
+            writeLong(key(key), value);
+            return this;
+        }
+
+        public MapWriter put(String key, Long value) throws IOException {
+            writeLong(key(key), value);
+            return this;
+        }
+
+        public MapWriter put(String key, boolean value) throws IOException {
+            writeBoolean(key(key), value);
+            return this;
+        }
+
+        public MapWriter put(String key, String value) throws IOException {
+            writeString(key(key), value);
+            return this;
+        }
+
+        public MapWriter put(String key, MapWriter value) throws IOException {
+            value.writeTo(key(key));
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void writeTo(BufferedSink sink) throws IOException {
+            writeMapHeader(sink, size);
+            sink.writeAll(body);
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.beagleflipper.util;
 
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Options;
+
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteOrder;
 
 public class MsgPackUtil {
 
     private static final int EXT_INT32 = 41;
+    private static final int SCRATCH_SIZE = 16 * 1024;
+
+    // the decoders are called from the okhttp callback threads so each gets its own scratch buffer
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[SCRATCH_SIZE]);
 
-    public static Object decodePrimitive(ByteBuffer b) {
-        int format = b.get() & 0xFF;
+    public static Object decodePrimitive(BufferedSource b) throws IOException {
+        int format = b.readByte() & 0xFF;
         int length;
 
         // Boolean cases
@@ -28,19 +38,19 @@ public class MsgPackUtil {
         else if ((format & 0xE0) == 0xA0) {
             // fixstr: format stores length in lower 5 bits
             length = format & 0x1F;
-            return getString(length, new byte[length], b);
+            return getString(length, b);
         } else if (format == 0xD9) {
             // str 8: next byte is length
-            length = b.get() & 0xFF;
-            return getString(length, new byte[length], b);
+            length = b.readByte() & 0xFF;
+            return getString(length, b);
         } else if (format == 0xDA) {
             // str 16: next 2 bytes are length
-            length = b.getShort() & 0xFFFF;
-            return getString(length, new byte[length], b);
+            length = b.readShort() & 0xFFFF;
+            return getString(length, b);
         } else if (format == 0xDB) {
             // str 32: next 4 bytes are length
-            length = b.getInt();
-            return getString(length, new byte[length], b);
+            length = b.readInt();
+            return getString(length, b);
         }
         // Integer cases
         else if (format <= 0x7F) {
@@ -51,74 +61,90 @@ public class MsgPackUtil {
             return (long) (format - 256);
         } else if (format == 0xCC) {
             // uint 8
-            return (long) (b.get() & 0xFF);
+            return (long) (b.readByte() & 0xFF);
         } else if (format == 0xCD) {
             // uint 16
-            return (long) (b.getShort() & 0xFFFF);
+            return (long) (b.readShort() & 0xFFFF);
         } else if (format == 0xCE) {
             // uint 32
-            return (long) (b.getInt() & 0xFFFFFFFFL);
+            return (long) (b.readInt() & 0xFFFFFFFFL);
         } else if (format == 0xCF) {
             // uint 64
-            return b.getLong();
+            return b.readLong();
         } else if (format == 0xD0) {
             // int 8
-            return (long) b.get();
+            return (long) b.readByte();
         } else if (format == 0xD1) {
             // int 16
-            return (long) b.getShort();
+            return (long) b.readShort();
         } else if (format == 0xD2) {
             // int 32
-            return (long) b.getInt();
+            return (long) b.readInt();
         } else if (format == 0xD3) {
             // int 64
-            return b.getLong();
+            return b.readLong();
         }
         // Double case
         else if (format == 0xCB) {
             // float 64
-            return b.getDouble();
+            return Double.longBitsToDouble(b.readLong());
         } else {
             throw new IllegalArgumentException("Invalid primitive format: " + format);
         }
     }
 
-    private static String getString(int length, byte[] length1, ByteBuffer b) {
+    private static String getString(int length, BufferedSource b) throws IOException {
         if (length == 0) {
             return "";
         }
-        byte[] bytes = length1;
-        b.get(bytes);
-        return new String(bytes, StandardCharsets.UTF_8);
+        return b.readUtf8(length);
     }
 
-    public static int[] decodeInt32Array(ByteBuffer b) {
-        int format = b.get() & 0xFF;
+    public static int[] decodeInt32Array(BufferedSource b) throws IOException {
+        int format = b.readByte() & 0xFF;
 
         if (format == 0xC0) {
             // nil (null)
             return null;
         } else if (format == 0xC9) {
             // ext 32 - extension with 32-bit length
-            int byteLength = b.getInt();
-            int extType = b.get() & 0xFF;
+            int byteLength = b.readInt();
+            int extType = b.readByte() & 0xFF;
             if (extType != EXT_INT32) {
                 throw new IllegalArgumentException("Expected extension type " + EXT_INT32 + ", got: " + extType);
             }
             int arrayLength = byteLength / 4;
             int[] result = new int[arrayLength];
-            for (int i = 0; i < arrayLength; i++) {
-                result[i] = (b.get() & 0xff) | ((b.get() & 0xff) << 8) |
-                        ((b.get() & 0xff) << 16) | ((b.get() & 0xff) << 24);
-            }
+            readInt32sLe(b, result, 0, arrayLength);
+            // skip any trailing bytes that don't make up a whole element
+            b.skip(byteLength - arrayLength * 4L);
             return result;
         } else {
             throw new IllegalArgumentException("Expected extension format 0xC9 or nil 0xC0, got: " + format);
         }
     }
 
-    public static Integer decodeMapSize(ByteBuffer b) {
-        int format = b.get() & 0xFF;
+    /**
+     * Bulk reads {@code count} little-endian ints into {@code dst} starting at {@code offset}. The
+     * bytes are copied through a pooled scratch buffer a chunk at a time and converted with an
+     * IntBuffer view rather than being assembled one byte at a time.
+     */
+    public static void readInt32sLe(BufferedSource b, int[] dst, int offset, int count) throws IOException {
+        byte[] scratch = SCRATCH.get();
+        ByteBuffer view = ByteBuffer.wrap(scratch).order(ByteOrder.LITTLE_ENDIAN);
+        int maxInts = scratch.length / 4;
+        while (count > 0) {
+            int n = Math.min(count, maxInts);
+            b.readFully(scratch, 0, n * 4);
+            view.clear();
+            view.asIntBuffer().get(dst, offset, n);
+            offset += n;
+            count -= n;
+        }
+    }
+
+    public static Integer decodeMapSize(BufferedSource b) throws IOException {
+        int format = b.readByte() & 0xFF;
         if (format == 0xC0) {
             // nil (null) - return null Data object
             return null;
@@ -127,12 +153,205 @@ public class MsgPackUtil {
             return format & 0x0F;
         } else if (format == 0xDE) {
             // map 16: next 2 bytes are size
-            return b.getShort() & 0xFFFF;
+            return b.readShort() & 0xFFFF;
         } else if (format == 0xDF) {
             // map 32: next 4 bytes are size (you were missing this case!)
-            return b.getInt();
+            return b.readInt();
         } else {
             throw new IllegalArgumentException("Invalid map format: " + format);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds a lookup table of map keys for {@link #readKeyId}. Each key is stored msgpack encoded
+     * (header included) so a key read off the wire can be matched without decoding it to a String.
+     */
+    public static Options keyTable(String... keys) {
+        ByteString[] encoded = new ByteString[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ByteString utf8 = ByteString.encodeUtf8(keys[i]);
+            Buffer key = new Buffer();
+            if (utf8.size() <= 0x1F) {
+                key.writeByte(0xA0 | utf8.size());
+            } else if (utf8.size() <= 0xFF) {
+                key.writeByte(0xD9);
+                key.writeByte(utf8.size());
+            } else {
+                throw new IllegalArgumentException("Map key too long: " + keys[i]);
+            }
+            key.write(utf8);
+            encoded[i] = key.readByteString();
+        }
+        return Options.of(encoded);
+    }
+
+    /**
+     * Reads a map key and returns its index in the table, or -1 if the key is not in the table.
+     * An unrecognised key is consumed, so the caller only has to skip its value.
+     */
+    public static int readKeyId(BufferedSource b, Options table) throws IOException {
+        int id = b.select(table);
+        if (id == -1) {
+            skipValue(b);
+        }
+        return id;
+    }
+
+    public static long readLong(BufferedSource b) throws IOException {
+        return readLong(b, b.readByte() & 0xFF);
+    }
+
+    private static long readLong(BufferedSource b, int format) throws IOException {
+        if (format <= 0x7F) {
+            // positive fixint
+            return format;
+        } else if (format >= 0xE0) {
+            // negative fixint
+            return format - 256;
+        }
+        switch (format) {
+            case 0xCC:
+                return b.readByte() & 0xFF;
+            case 0xCD:
+                return b.readShort() & 0xFFFF;
+            case 0xCE:
+                return b.readInt() & 0xFFFFFFFFL;
+            case 0xCF:
+            case 0xD3:
+                return b.readLong();
+            case 0xD0:
+                return b.readByte();
+            case 0xD1:
+                return b.readShort();
+            case 0xD2:
+                return b.readInt();
+            default:
+                throw new IllegalArgumentException("Invalid integer format: " + format);
+        }
+    }
+
+    public static int readInt(BufferedSource b) throws IOException {
+        return (int) readLong(b);
+    }
+
+    public static double readDouble(BufferedSource b) throws IOException {
+        int format = b.readByte() & 0xFF;
+        if (format == 0xCB) {
+            return Double.longBitsToDouble(b.readLong());
+        } else if (format == 0xCA) {
+            return Float.intBitsToFloat(b.readInt());
+        }
+        // whole numbers may have been packed as integers
+        return readLong(b, format);
+    }
+
+    public static boolean readBoolean(BufferedSource b) throws IOException {
+        int format = b.readByte() & 0xFF;
+        if (format == 0xC2) {
+            return false;
+        } else if (format == 0xC3) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid boolean format: " + format);
+    }
+
+    public static String readStringOrNull(BufferedSource b) throws IOException {
+        int format = b.readByte() & 0xFF;
+        if (format == 0xC0) {
+            return null;
+        } else if ((format & 0xE0) == 0xA0) {
+            return getString(format & 0x1F, b);
+        } else if (format == 0xD9) {
+            return getString(b.readByte() & 0xFF, b);
+        } else if (format == 0xDA) {
+            return getString(b.readShort() & 0xFFFF, b);
+        } else if (format == 0xDB) {
+            return getString(b.readInt(), b);
+        }
+        throw new IllegalArgumentException("Invalid string format: " + format);
+    }
+
+    /**
+     * Skips over the next value of any type, including nested maps and arrays, without allocating.
+     */
+    public static void skipValue(BufferedSource b) throws IOException {
+        long pending = 1;
+        while (pending-- > 0) {
+            int format = b.readByte() & 0xFF;
+            if (format <= 0x7F || format >= 0xE0 || format == 0xC0 || format == 0xC2 || format == 0xC3) {
+                // fixint, nil and booleans carry no payload
+                continue;
+            } else if ((format & 0xE0) == 0xA0) {
+                b.skip(format & 0x1F);
+                continue;
+            } else if ((format & 0xF0) == 0x80) {
+                pending += 2L * (format & 0x0F);
+                continue;
+            } else if ((format & 0xF0) == 0x90) {
+                pending += format & 0x0F;
+                continue;
+            }
+            switch (format) {
+                case 0xCC: case 0xD0:
+                    b.skip(1);
+                    break;
+                case 0xCD: case 0xD1:
+                    b.skip(2);
+                    break;
+                case 0xCE: case 0xD2: case 0xCA:
+                    b.skip(4);
+                    break;
+                case 0xCF: case 0xD3: case 0xCB:
+                    b.skip(8);
+                    break;
+                case 0xD9: case 0xC4:
+                    b.skip(b.readByte() & 0xFF);
+                    break;
+                case 0xDA: case 0xC5:
+                    b.skip(b.readShort() & 0xFFFF);
+                    break;
+                case 0xDB: case 0xC6:
+                    b.skip(b.readInt() & 0xFFFFFFFFL);
+                    break;
+                case 0xD4:
+                    b.skip(2);
+                    break;
+                case 0xD5:
+                    b.skip(3);
+                    break;
+                case 0xD6:
+                    b.skip(5);
+                    break;
+                case 0xD7:
+                    b.skip(9);
+                    break;
+                case 0xD8:
+                    b.skip(17);
+                    break;
+                case 0xC7:
+                    b.skip((b.readByte() & 0xFF) + 1L);
+                    break;
+                case 0xC8:
+                    b.skip((b.readShort() & 0xFFFF) + 1L);
+                    break;
+                case 0xC9:
+                    b.skip((b.readInt() & 0xFFFFFFFFL) + 1L);
+                    break;
+                case 0xDC:
+                    pending += b.readShort() & 0xFFFF;
+                    break;
+                case 0xDD:
+                    pending += b.readInt() & 0xFFFFFFFFL;
+                    break;
+                case 0xDE:
+                    pending += 2L * (b.readShort() & 0xFFFF);
+                    break;
+                case 0xDF:
+                    pending += 2L * (b.readInt() & 0xFFFFFFFFL);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid format: " + format);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.beagleflipper.controller;
+
+import com.beagleflipper.model.FlipV2;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlipCacheFileTest {
+
+    private static FlipV2 flip(String id, int accountId, String itemName, int closedTime) {
+        FlipV2 f = new FlipV2();
+        f.setId(id);
+        f.setAccountId(accountId);
+        f.setItemId(560);
+        f.setItemName(itemName);
+        f.setOpenedTime(closedTime - 600);
+        f.setOpenedQuantity(100);
+        f.setSpent(25_000);
+        f.setClosedTime(closedTime);
+        f.setClosedQuantity(100);
+        f.setReceivedPostTax(27_000);
+        f.setProfit(2_000);
+        f.setTaxPaid(500);
+        f.setClosed(true);
+        f.setAccountDisplayName(accountId == 0 ? "Acc 1" : "Acc 2");
+        return f;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Map<String, Integer> names = new HashMap<>();
+        names.put("Acc 1", 0);
+        names.put("Acc 2", 1);
+        List<FlipV2> flips = Arrays.asList(
+                flip("a", 0, "Death rune", 1_700_000_000),
+                flip("b", 1, "Death rune", 1_700_000_100),
+                flip("c", 0, null, 1_700_000_200),
+                flip("d", 1, "Nature rune", 1_700_000_300));
+
+        FlipCacheFile.Writer writer = new FlipCacheFile.Writer(1_700_000_500, names);
+        flips.forEach(writer::add);
+        FlipCacheFile.Snapshot snapshot = FlipCacheFile.decode(new ByteArrayInputStream(writer.toByteArray()));
+
+        assertEquals(1_700_000_500, snapshot.getWatermark());
+        assertEquals(names, snapshot.getDisplayNameToAccountId());
+        assertEquals(flips, snapshot.getFlips());
+        assertEquals("Acc 2", snapshot.getFlips().get(3).getAccountDisplayName());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFileIsRejected() throws IOException {
+        FlipCacheFile.Writer writer = new FlipCacheFile.Writer(0, new HashMap<>());
+        writer.add(flip("a", 0, "Death rune", 1_700_000_000));
+        byte[] bytes = writer.toByteArray();
+        FlipCacheFile.decode(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 10)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptNameRefIsRejected() throws IOException {
+        FlipCacheFile.Writer writer = new FlipCacheFile.Writer(0, new HashMap<>());
+        writer.add(flip("a", 0, "Death rune", 1_700_000_000));
+        byte[] bytes = writer.toByteArray();
+        // the item name ref follows magic, version, watermark, name count, the record marker, the id and the
+        // account and item ids
+        int ref = 4 * 4 + 1 + 2 + "a".length() + 2 * 4;
+        bytes[ref] = 0x7f;
+        FlipCacheFile.decode(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativeNameCountIsRejected() throws IOException {
+        byte[] bytes = new FlipCacheFile.Writer(0, new HashMap<>()).toByteArray();
+        bytes[12] = (byte) 0xff;
+        FlipCacheFile.decode(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,89 @@
+package com.beagleflipper.controller;
+
+import com.beagleflipper.model.ItemPrice;
+import com.beagleflipper.model.SuggestionPreferences;
+import com.beagleflipper.model.SuggestionPreferencesManager;
+import com.beagleflipper.ui.graph.model.Data;
+import net.runelite.client.callback.ClientThread;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ItemPriceCacheTest {
+
+    private ApiRequestHandler api;
+    private ItemPriceCache cache;
+    private long now = 1_000_000;
+
+    @Before
+    public void setUp() {
+        api = mock(ApiRequestHandler.class);
+        SuggestionPreferencesManager preferencesManager = mock(SuggestionPreferencesManager.class);
+        when(preferencesManager.getPreferences()).thenReturn(mock(SuggestionPreferences.class));
+        when(preferencesManager.getTimeframe()).thenReturn(5);
+        ClientThread clientThread = mock(ClientThread.class);
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(clientThread).invokeLater(any(Runnable.class));
+        cache = new ItemPriceCache(api, preferencesManager, clientThread);
+        cache.clock = () -> now;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<ItemPrice> captureRequest(int times, boolean includeGraphData) {
+        ArgumentCaptor<Consumer<ItemPrice>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(api, times(times)).asyncGetItemPrice(eq(2), eq("name"), eq(includeGraphData), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void concurrentRequestsAreCoalescedAndLaterOnesHitTheCache() {
+        List<ItemPrice> received = new ArrayList<>();
+        cache.getItemPriceWithGraphData(2, "name", received::add);
+        cache.getItemPrice(2, "name", received::add);
+        Consumer<ItemPrice> response = captureRequest(1, true);
+
+        Data graph = new Data();
+        response.accept(new ItemPrice(100, 90, null, graph));
+        cache.getItemPriceWithGraphData(2, "name", received::add);
+
+        assertEquals(3, received.size());
+        assertSame(graph, received.get(2).getGraphData());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getCoalesced());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void stalePricesAreRefetchedWithoutGraphData() {
+        cache.getItemPriceWithGraphData(2, "name", ip -> {});
+        Data graph = new Data();
+        captureRequest(1, true).accept(new ItemPrice(100, 90, null, graph));
+
+        now += ItemPriceCache.PRICE_TTL_MS;
+        List<ItemPrice> received = new ArrayList<>();
+        cache.getItemPriceWithGraphData(2, "name", received::add);
+        captureRequest(1, false).accept(new ItemPrice(101, 91, null, null));
+
+        assertEquals(101, received.get(0).getSellPrice());
+        assertSame(graph, received.get(0).getGraphData());
+    }
+
+    @Test
+    public void errorsAreNotCached() {
+        cache.getItemPrice(2, "name", ip -> {});
+        captureRequest(1, true).accept(new ItemPrice(0, 0, "error", null));
+        cache.getItemPrice(2, "name", ip -> {});
+        captureRequest(2, true);
+        assertEquals(0, cache.getHits());
+    }
+}
@@ -0,0 +1,35 @@
+package com.beagleflipper.controller;
+
+import okhttp3.Call;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class RetryableCallTest {
+
+    @Test
+    public void cancelReachesTheRetriedCall() {
+        Call original = mock(Call.class);
+        Call retry = mock(Call.class);
+        RetryableCall handle = new RetryableCall(original);
+
+        handle.retryWith(retry);
+        verify(retry, never()).cancel();
+        handle.cancel();
+        verify(retry).cancel();
+    }
+
+    @Test
+    public void retryAfterCancelIsCancelledStraightAway() {
+        Call original = mock(Call.class);
+        Call retry = mock(Call.class);
+        RetryableCall handle = new RetryableCall(original);
+
+        handle.cancel();
+        verify(original).cancel();
+        handle.retryWith(retry);
+        verify(retry).cancel();
+    }
+}
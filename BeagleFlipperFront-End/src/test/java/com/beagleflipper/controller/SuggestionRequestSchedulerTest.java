@@ -0,0 +1,137 @@
+package com.beagleflipper.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SuggestionRequestSchedulerTest {
+
+    private final List<Long> started = new ArrayList<>();
+    private final List<RetryableCall> calls = new ArrayList<>();
+    private SuggestionRequestScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new SuggestionRequestScheduler(new DoesNothingExecutorService(), generation -> {
+            started.add(generation);
+            RetryableCall call = mock(RetryableCall.class);
+            calls.add(call);
+            return call;
+        });
+    }
+
+    @Test
+    public void triggersWithinATickAreCoalescedIntoOneRequest() {
+        scheduler.markDirty();
+        scheduler.markDirty();
+        scheduler.markDirty();
+        assertTrue(started.isEmpty());
+
+        scheduler.onTick();
+        scheduler.onTick();
+        assertEquals(1, started.size());
+        assertTrue(scheduler.isInFlight());
+    }
+
+    @Test
+    public void triggersDuringAnInFlightRequestLeaveOneDirtyFollowUp() {
+        scheduler.requestNow();
+        scheduler.markDirty();
+        scheduler.requestNow();
+        scheduler.onTick();
+        assertEquals(1, started.size());
+
+        assertTrue(scheduler.complete(started.get(0)));
+        scheduler.onTick();
+        assertEquals(2, started.size());
+        scheduler.onTick();
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    public void supersedeCancelsInFlightCallAndDropsItsResponse() {
+        scheduler.requestNow();
+        long first = started.get(0);
+
+        scheduler.supersede();
+        verify(calls.get(0)).cancel();
+        assertEquals(2, started.size());
+        long second = started.get(1);
+
+        assertFalse(scheduler.isCurrent(first));
+        assertFalse(scheduler.complete(first));
+        assertTrue(scheduler.isInFlight());
+        assertTrue(scheduler.isCurrent(second));
+        assertTrue(scheduler.complete(second));
+        assertFalse(scheduler.isInFlight());
+    }
+
+    @Test
+    public void requestThatCouldNotBeSentLeavesSchedulerIdle() {
+        SuggestionRequestScheduler s = new SuggestionRequestScheduler(new DoesNothingExecutorService(), generation -> null);
+        s.requestNow();
+        assertFalse(s.isInFlight());
+        assertFalse(s.isDirty());
+    }
+
+    @Test
+    public void watchdogCancelsStuckRequest() {
+        scheduler.requestNow();
+        scheduler.onWatchdog(started.get(0));
+        verify(calls.get(0)).cancel();
+    }
+
+    @Test
+    public void starterRunsWithoutTheSchedulerLock() {
+        SuggestionRequestScheduler[] s = new SuggestionRequestScheduler[1];
+        List<Boolean> heldLock = new ArrayList<>();
+        s[0] = new SuggestionRequestScheduler(new DoesNothingExecutorService(), generation -> {
+            heldLock.add(Thread.holdsLock(s[0]));
+            return mock(RetryableCall.class);
+        });
+        s[0].requestNow();
+        assertEquals(1, heldLock.size());
+        assertFalse(heldLock.get(0));
+        assertTrue(s[0].isInFlight());
+    }
+
+    @Test
+    public void requestCompletedBeforeItsStarterReturnsIsNotInFlight() {
+        SuggestionRequestScheduler[] s = new SuggestionRequestScheduler[1];
+        s[0] = new SuggestionRequestScheduler(new DoesNothingExecutorService(), generation -> {
+            assertTrue(s[0].complete(generation));
+            return mock(RetryableCall.class);
+        });
+        s[0].requestNow();
+        assertFalse(s[0].isInFlight());
+    }
+
+    @Test
+    public void supersedeWhileStartingReplacesTheRequest() {
+        SuggestionRequestScheduler[] s = new SuggestionRequestScheduler[1];
+        s[0] = new SuggestionRequestScheduler(new DoesNothingExecutorService(), generation -> {
+            started.add(generation);
+            if (started.size() == 1) {
+                // only bumps the generation, the first start is still holding the slot
+                s[0].supersede();
+                assertEquals(1, started.size());
+            }
+            RetryableCall call = mock(RetryableCall.class);
+            calls.add(call);
+            return call;
+        });
+        s[0].requestNow();
+
+        assertEquals(2, started.size());
+        verify(calls.get(0)).cancel();
+        verify(calls.get(1), never()).cancel();
+        assertFalse(s[0].isCurrent(started.get(0)));
+        assertTrue(s[0].isCurrent(started.get(1)));
+        assertTrue(s[0].isInFlight());
+    }
+}
@@ -0,0 +1,121 @@
+package com.beagleflipper.controller;
+
+import com.beagleflipper.model.Transaction;
+import com.google.gson.Gson;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UnAckedTransactionLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Gson gson = new Gson();
+
+    private static Transaction transaction(String id) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        t.setItemId(560);
+        return t;
+    }
+
+    private UnAckedTransactionLog open(File file) {
+        // runs flushes and compactions inline
+        return new UnAckedTransactionLog(file, gson, Runnable::run);
+    }
+
+    @Test
+    public void testAckedTransactionsAreNotReloaded() throws IOException {
+        File file = new File(folder.getRoot(), "log.jsonl");
+        UnAckedTransactionLog log = open(file);
+        log.load();
+        log.append(transaction("a"));
+        log.append(transaction("b"));
+        log.append(transaction("c"));
+        log.ack(Collections.singletonList("b"));
+        log.close();
+
+        List<Transaction> reloaded = open(file).load();
+        assertEquals(2, reloaded.size());
+        assertEquals("a", reloaded.get(0).getId());
+        assertEquals("c", reloaded.get(1).getId());
+        assertEquals(4, Files.readAllLines(file.toPath()).size());
+    }
+
+    @Test
+    public void testTornLastLineIsTruncated() throws IOException {
+        File file = new File(folder.getRoot(), "log.jsonl");
+        String complete = gson.toJson(transaction("a")) + "\n";
+        Files.write(file.toPath(), (complete + "{\"id\":\"b\",\"ty").getBytes(StandardCharsets.UTF_8));
+
+        UnAckedTransactionLog log = open(file);
+        List<Transaction> loaded = log.load();
+        assertEquals(1, loaded.size());
+        assertEquals("a", loaded.get(0).getId());
+        assertEquals(complete, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+
+        log.append(transaction("c"));
+        log.close();
+        assertEquals(2, open(file).load().size());
+    }
+
+    @Test
+    public void testCompactsOnceAcksDominate() throws IOException {
+        File file = new File(folder.getRoot(), "log.jsonl");
+        UnAckedTransactionLog log = open(file);
+        log.load();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < UnAckedTransactionLog.MIN_COMPACTION_RECORDS; i++) {
+            log.append(transaction("t" + i));
+            ids.add("t" + i);
+        }
+        ids.remove("t7");
+        log.ack(ids);
+        log.close();
+
+        assertEquals(1, log.getRecords());
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"t7\""));
+        assertEquals("t7", open(file).load().get(0).getId());
+    }
+
+    @Test
+    public void testCompactionQueuedBeforeCloseDoesNotReplaceReopenedLog() throws IOException {
+        File file = new File(folder.getRoot(), "log.jsonl");
+        List<Runnable> queued = new ArrayList<>();
+        UnAckedTransactionLog log = new UnAckedTransactionLog(file, gson, queued::add);
+        log.load();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < UnAckedTransactionLog.MIN_COMPACTION_RECORDS; i++) {
+            log.append(transaction("t" + i));
+            ids.add("t" + i);
+        }
+        ids.remove("t7");
+        log.ack(ids);
+        log.close();
+
+        UnAckedTransactionLog reopened = open(file);
+        assertEquals(1, reopened.load().size());
+        reopened.append(transaction("x"));
+        queued.forEach(Runnable::run);
+        reopened.close();
+
+        List<Transaction> reloaded = open(file).load();
+        assertEquals(2, reloaded.size());
+        assertEquals("t7", reloaded.get(0).getId());
+        assertEquals("x", reloaded.get(1).getId());
+    }
+}
@@ -1,7 +1,13 @@
 package com.beagleflipper.model;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
 public class AccountStatusTest {
 
     @Test
@@ -16,4 +22,43 @@ public class AccountStatusTest {
         accountStatus.getInventory().add(new RSItem(995, 2000));
         assert !accountStatus.moreGpNeeded();
     }
+
+    private static AccountStatus status(long coins, List<Integer> blocked) {
+        AccountStatus status = new AccountStatus();
+        Inventory inventory = new Inventory();
+        inventory.add(new RSItem(995, coins));
+        status.setInventory(inventory);
+        status.setOffers(new StatusOfferList());
+        status.setUncollected(new HashMap<>());
+        status.setBlockedItems(blocked);
+        status.setBlockedItemsHash(AccountStatus.hashBlockedItems(blocked));
+        return status;
+    }
+
+    @Test
+    public void testPatchOmitsSectionsUnchangedFromBase() {
+        Gson gson = new Gson();
+        List<Integer> blocked = new ArrayList<>(List.of(1, 2, 3));
+        AccountStatus base = status(1000, blocked);
+        AccountStatus current = status(2000, new ArrayList<>(blocked));
+
+        JsonObject patch = current.toJson(gson, true, false, base);
+        assert patch.has("inventory");
+        assert !patch.has("offers");
+        assert !patch.has("uncollected");
+        assert !patch.has("blocked_items");
+        assert patch.get("blocked_items_hash").getAsString().equals(base.getBlockedItemsHash());
+
+        JsonObject full = current.toJson(gson, true, false);
+        assert full.has("offers") && full.has("uncollected") && full.has("blocked_items");
+    }
+
+    @Test
+    public void testPatchSendsChangedBlockedItems() {
+        AccountStatus base = status(1000, List.of(1, 2, 3));
+        AccountStatus current = status(1000, List.of(1, 2));
+        JsonObject patch = current.toJson(new Gson(), true, false, base);
+        assert patch.has("blocked_items");
+        assert !patch.has("inventory");
+    }
 }
@@ -0,0 +1,66 @@
+package com.beagleflipper.model;
+
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlipAnalyticsTest {
+
+    // Monday 2024-01-01 00:00 UTC
+    private static final int MONDAY = 1_704_067_200;
+
+    private static FlipV2 flip(int accountId, int itemId, int openedTime, int closedTime, long profit) {
+        FlipV2 f = new FlipV2();
+        f.setAccountId(accountId);
+        f.setItemId(itemId);
+        f.setItemName("Item " + itemId);
+        f.setOpenedTime(openedTime);
+        f.setOpenedQuantity(10);
+        f.setClosedTime(closedTime);
+        f.setClosedQuantity(10);
+        f.setSpent(10_000);
+        f.setProfit(profit);
+        f.setClosed(true);
+        return f;
+    }
+
+    @Test
+    public void testRollups() {
+        FlipAnalytics analytics = new FlipAnalytics(ZoneOffset.UTC);
+        analytics.addFlip(flip(0, 560, MONDAY + 3600, MONDAY + 5 * 3600, 100));
+        analytics.addFlip(flip(0, 560, MONDAY, MONDAY + 5 * 3600 + 60, 300));
+        analytics.addFlip(flip(1, 561, MONDAY + 86_400, MONDAY + 86_400 + 600, -50));
+
+        List<ItemStats> items = analytics.itemStats(null);
+        assertEquals(2, items.size());
+        ItemStats deathRunes = items.get(0);
+        assertEquals(560, deathRunes.itemId);
+        assertEquals(400, deathRunes.stats.profit);
+        assertEquals(2, deathRunes.stats.flipsMade);
+        assertEquals((4 * 3600 + 5 * 3600 + 60) / 2, deathRunes.averageHoldSeconds());
+        assertEquals(0.02f, deathRunes.calculateRoi(), 1e-6);
+
+        assertEquals(1, analytics.itemStats(1).size());
+        assertEquals(400, analytics.hourOfDayStats(null)[5].profit);
+        assertEquals(-50, analytics.hourOfDayStats(null)[0].profit);
+        assertEquals(400, analytics.weekdayStats(0)[0].profit);
+        assertEquals(-50, analytics.weekdayStats(null)[1].profit);
+    }
+
+    @Test
+    public void testSubtractUndoesAdd() {
+        FlipAnalytics analytics = new FlipAnalytics(ZoneOffset.UTC);
+        FlipV2 f = flip(0, 560, MONDAY, MONDAY + 600, 100);
+        analytics.addFlip(f);
+        analytics.subtractFlip(f);
+
+        assertTrue(analytics.itemStats(null).isEmpty());
+        for (Stats s : analytics.hourOfDayStats(null)) {
+            assertEquals(new Stats(), s);
+        }
+    }
+}
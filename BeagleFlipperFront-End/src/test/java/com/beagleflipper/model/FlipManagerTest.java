@@ -0,0 +1,79 @@
+package com.beagleflipper.model;
+
+import com.beagleflipper.controller.ApiRequestHandler;
+import com.beagleflipper.controller.DoesNothingExecutorService;
+import okhttp3.OkHttpClient;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlipManagerTest {
+
+    private static final String DISPLAY_NAME = "Acc 1";
+
+    private static FlipManager newFlipManager() {
+        return new FlipManager(
+                Mockito.mock(ApiRequestHandler.class),
+                new DoesNothingExecutorService(),
+                new OkHttpClient.Builder().build(),
+                Mockito.mock(OsrsLoginManager.class));
+    }
+
+    private static FlipV2 openFlip(String id, int itemId, int closedTime) {
+        FlipV2 f = new FlipV2();
+        f.setId(id);
+        f.setAccountId(0);
+        f.setItemId(itemId);
+        f.setOpenedTime(closedTime - 60);
+        f.setOpenedQuantity(100);
+        f.setSpent(10_000);
+        f.setClosedTime(closedTime);
+        return f;
+    }
+
+    private static Transaction sell(int itemId, int quantity, int price) {
+        Transaction t = new Transaction();
+        t.setType(OfferStatus.SELL);
+        t.setItemId(itemId);
+        t.setQuantity(quantity);
+        t.setPrice(price);
+        return t;
+    }
+
+    @Test
+    public void testProfitEstimateDoesNotWaitForMerge() throws Exception {
+        FlipManager flipManager = newFlipManager();
+        flipManager.mergeFlips(Collections.singletonList(openFlip("open", 560, 1_700_000_000)), DISPLAY_NAME);
+        long expected = flipManager.estimateTransactionProfit(DISPLAY_NAME, sell(560, 10, 200));
+        assertEquals(960, expected);
+
+        List<FlipV2> history = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            history.add(openFlip("f" + i, 1000 + i, 1_600_000_000 + i * 60));
+        }
+        // hold the write lock as a merge would, the client thread estimate has to return regardless
+        flipManager.lock.writeLock().lock();
+        try {
+            long estimate = CompletableFuture.supplyAsync(() -> flipManager.estimateTransactionProfit(DISPLAY_NAME, sell(560, 10, 200)))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(expected, estimate);
+        } finally {
+            flipManager.lock.writeLock().unlock();
+        }
+
+        CompletableFuture<Void> merge = CompletableFuture.runAsync(() -> flipManager.mergeFlips(history, null));
+        for (int i = 0; i < 100 && !merge.isDone(); i++) {
+            assertEquals(expected, flipManager.estimateTransactionProfit(DISPLAY_NAME, sell(560, 10, 200)));
+        }
+        merge.get(60, TimeUnit.SECONDS);
+        // the merged open flips are published once the merge releases the lock
+        assertEquals(960, flipManager.estimateTransactionProfit(DISPLAY_NAME, sell(1000, 10, 200)));
+    }
+}
@@ -147,12 +147,16 @@ public class FlipPriceGraphControllerTest {
     }
 
     public void verifyflipManagerStoredOrder(FlipManager flipManager) {
-        for (int i =0; i < flipManager.weeks.size(); i++) {
-            Assert.assertTrue(flipManager.weeks.get(Math.max(i-1,0)).weekStart <= flipManager.weeks.get(i).weekStart);
-            FlipManager.WeekAggregate w = flipManager.weeks.get(i);
-            for (List<FlipV2> flips : w.accountIdToFlips.values()) {
+        int lastWeekStart = Integer.MIN_VALUE;
+        for (FlipManager.WeekAggregate w : flipManager.weeks) {
+            if (w == null) {
+                continue;
+            }
+            Assert.assertTrue(lastWeekStart < w.weekStart);
+            lastWeekStart = w.weekStart;
+            for (FlipColumns flips : w.accountIdToFlips.values()) {
                 for (int ii =1; ii < flips.size(); ii++) {
-                    Assert.assertTrue(flips.get(ii-1).getClosedTime() <= flips.get(ii).getClosedTime());
+                    Assert.assertTrue(flips.closedTime(ii-1) <= flips.closedTime(ii));
                 }
             }
         }
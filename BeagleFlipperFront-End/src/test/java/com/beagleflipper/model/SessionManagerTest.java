@@ -0,0 +1,124 @@
+package com.beagleflipper.model;
+
+import com.beagleflipper.controller.DoesNothingExecutorService;
+import com.google.gson.Gson;
+import net.runelite.api.GrandExchangeOffer;
+import net.runelite.api.GrandExchangeOfferState;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.ItemID;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SessionManagerTest {
+
+    private static class TestClock extends Clock {
+        private Instant now = Instant.ofEpochSecond(1_700_000_000);
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final TestClock clock = new TestClock();
+
+    private SessionManager newSessionManager() {
+        OsrsLoginManager osrsLoginManager = mock(OsrsLoginManager.class);
+        when(osrsLoginManager.getPlayerDisplayName()).thenReturn("session manager test");
+        SessionManager sessionManager = new SessionManager(osrsLoginManager, new DoesNothingExecutorService(), new Gson());
+        sessionManager.setClock(clock);
+        return sessionManager;
+    }
+
+    private static ItemContainer inventory(Item... items) {
+        ItemContainer inventory = mock(ItemContainer.class);
+        when(inventory.getItems()).thenReturn(items);
+        return inventory;
+    }
+
+    private static GrandExchangeOffer offer(GrandExchangeOfferState state) {
+        GrandExchangeOffer offer = mock(GrandExchangeOffer.class);
+        when(offer.getState()).thenReturn(state);
+        return offer;
+    }
+
+    @Test
+    public void testSessionOnlyRunsWhileAnOfferIsActive() {
+        SessionManager sessionManager = newSessionManager();
+        sessionManager.resetSession();
+        assertFalse(sessionManager.updateSessionStats());
+
+        sessionManager.onOfferChanged(3, GrandExchangeOfferState.BUYING);
+        sessionManager.onOfferChanged(5, GrandExchangeOfferState.SOLD);
+        // the first tick with an active offer only starts the clock
+        assertFalse(sessionManager.updateSessionStats());
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(sessionManager.updateSessionStats());
+
+        sessionManager.onOfferChanged(3, GrandExchangeOfferState.EMPTY);
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(sessionManager.updateSessionStats());
+        assertEquals(2_000, sessionManager.getCachedSessionData().durationMillis);
+
+        sessionManager.onOfferChanged(5, GrandExchangeOfferState.EMPTY);
+        assertFalse(sessionManager.updateSessionStats());
+    }
+
+    @Test
+    public void testCashStackComesFromInventoryEvents() {
+        SessionManager sessionManager = newSessionManager();
+        sessionManager.resetSession();
+        sessionManager.onInventoryChanged(inventory(
+                new Item(ItemID.COINS_995, 1_500),
+                new Item(ItemID.DEATH_RUNE, 100),
+                new Item(ItemID.PLATINUM_TOKEN, 2)));
+        sessionManager.onOfferChanged(0, GrandExchangeOfferState.BUYING);
+
+        assertFalse(sessionManager.updateSessionStats());
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(sessionManager.updateSessionStats());
+        assertEquals(3_500, sessionManager.getCachedSessionData().averageCash);
+    }
+
+    @Test
+    public void testSeedFromClientStateStartsTheSession() {
+        SessionManager sessionManager = newSessionManager();
+        sessionManager.resetSession();
+        GrandExchangeOffer[] offers = new GrandExchangeOffer[StatusOfferList.NUM_SLOTS];
+        for (int i = 0; i < offers.length; i++) {
+            offers[i] = offer(i == 6 ? GrandExchangeOfferState.SELLING : GrandExchangeOfferState.EMPTY);
+        }
+        sessionManager.seed(offers, inventory(new Item(ItemID.COINS_995, 10_000)));
+
+        assertFalse(sessionManager.updateSessionStats());
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(sessionManager.updateSessionStats());
+        assertEquals(10_000, sessionManager.getCachedSessionData().averageCash);
+    }
+}
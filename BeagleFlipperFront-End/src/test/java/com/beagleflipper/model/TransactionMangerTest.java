@@ -0,0 +1,66 @@
+package com.beagleflipper.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionMangerTest {
+
+    private static Transaction transaction(String id, int itemId) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        t.setItemId(itemId);
+        return t;
+    }
+
+    @Test
+    public void testBatchesAreCappedAtBatchSize() {
+        List<Transaction> unAcked = new ArrayList<>();
+        for (int i = 0; i < TransactionManger.BATCH_SIZE * 2 + 5; i++) {
+            unAcked.add(transaction("t" + i, i));
+        }
+        Set<String> inFlight = new HashSet<>();
+        List<Transaction> first = TransactionManger.nextBatch(unAcked, inFlight);
+        assertEquals(TransactionManger.BATCH_SIZE, first.size());
+        assertEquals("t0", first.get(0).getId());
+
+        first.forEach(t -> inFlight.add(t.getId()));
+        List<Transaction> second = TransactionManger.nextBatch(unAcked, inFlight);
+        assertEquals(TransactionManger.BATCH_SIZE, second.size());
+        assertEquals("t" + TransactionManger.BATCH_SIZE, second.get(0).getId());
+
+        second.forEach(t -> inFlight.add(t.getId()));
+        assertEquals(5, TransactionManger.nextBatch(unAcked, inFlight).size());
+    }
+
+    @Test
+    public void testItemWithTransactionInFlightIsHeldBack() {
+        List<Transaction> unAcked = new ArrayList<>();
+        unAcked.add(transaction("a", 1));
+        unAcked.add(transaction("b", 2));
+        unAcked.add(transaction("c", 1));
+        unAcked.add(transaction("d", 3));
+
+        List<Transaction> batch = TransactionManger.nextBatch(unAcked, Collections.singleton("a"));
+        assertEquals(2, batch.size());
+        assertEquals("b", batch.get(0).getId());
+        assertEquals("d", batch.get(1).getId());
+    }
+
+    @Test
+    public void testBackoffGrowsAndIsCapped() {
+        for (int failures = 1; failures < 30; failures++) {
+            long expected = Math.min(TransactionManger.BACKOFF_MAX_MS, TransactionManger.BACKOFF_BASE_MS << Math.min(failures - 1, 20));
+            long delay = TransactionManger.backoffMs(failures);
+            assertTrue(delay >= expected / 2);
+            assertTrue(delay <= expected);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.beagleflipper.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class WeeklyStatsIndexTest {
+
+    private static FlipV2 flip(long profit, long spent, long tax) {
+        FlipV2 f = new FlipV2();
+        f.setProfit(profit);
+        f.setSpent(spent);
+        f.setTaxPaid(tax);
+        return f;
+    }
+
+    @Test
+    public void testSumFromMatchesBruteForceAcrossGrowth() {
+        Random random = new Random(1);
+        WeeklyStatsIndex index = new WeeklyStatsIndex(8);
+        int weeks = 300;
+        long[] profit = new long[weeks];
+        long[] gross = new long[weeks];
+        long[] tax = new long[weeks];
+        int[] count = new int[weeks];
+
+        for (int i = 0; i < 2000; i++) {
+            int week = random.nextInt(weeks);
+            FlipV2 f = flip(random.nextInt(20_000) - 10_000, random.nextInt(100_000), random.nextInt(1_000));
+            if (count[week] > 0 && random.nextInt(4) == 0) {
+                index.subtractFlip(week, f);
+                profit[week] -= f.getProfit();
+                gross[week] -= f.getSpent();
+                tax[week] -= f.getTaxPaid();
+                count[week]--;
+            } else {
+                index.addFlip(week, f);
+                profit[week] += f.getProfit();
+                gross[week] += f.getSpent();
+                tax[week] += f.getTaxPaid();
+                count[week]++;
+            }
+        }
+
+        for (int from = 0; from <= weeks + 10; from++) {
+            Stats expected = new Stats();
+            for (int w = from; w < weeks; w++) {
+                expected.profit += profit[w];
+                expected.gross += gross[w];
+                expected.taxPaid += tax[w];
+                expected.flipsMade += count[w];
+            }
+            Stats actual = index.sumFrom(from);
+            assertEquals(expected.profit, actual.profit);
+            assertEquals(expected.gross, actual.gross);
+            assertEquals(expected.taxPaid, actual.taxPaid);
+            assertEquals(expected.flipsMade, actual.flipsMade);
+        }
+    }
+
+    @Test
+    public void testClear() {
+        WeeklyStatsIndex index = new WeeklyStatsIndex();
+        index.addFlip(2800, flip(100, 1_000, 10));
+        index.clear();
+        Stats stats = index.sumFrom(0);
+        assertEquals(0, stats.profit);
+        assertEquals(0, stats.flipsMade);
+    }
+}
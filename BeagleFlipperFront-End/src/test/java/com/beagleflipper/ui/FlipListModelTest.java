@@ -0,0 +1,100 @@
+package com.beagleflipper.ui;
+
+import com.beagleflipper.model.FlipManager;
+import com.beagleflipper.model.FlipV2;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FlipListModelTest {
+
+    private final List<FlipV2> flips = new ArrayList<>();
+    private final List<Integer> pagesLoaded = new ArrayList<>();
+
+    private FlipListModel newModel(int n) {
+        for (int i = 0; i < n; i++) {
+            flips.add(flip(i, 1_000));
+        }
+        FlipManager flipManager = mock(FlipManager.class);
+        when(flipManager.getPageFlips(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int page = invocation.getArgument(0);
+            int pageSize = invocation.getArgument(1);
+            pagesLoaded.add(page);
+            int from = Math.min(flips.size(), (page - 1) * pageSize);
+            return new ArrayList<>(flips.subList(from, Math.min(flips.size(), from + pageSize)));
+        });
+        return new FlipListModel(flipManager);
+    }
+
+    private static FlipV2 flip(int i, long profit) {
+        FlipV2 f = new FlipV2();
+        f.setId("flip " + i);
+        f.setProfit(profit);
+        return f;
+    }
+
+    @Test
+    public void testResizeWithNothingVisibleLoadsNothing() {
+        FlipListModel model = newModel(250);
+        RefreshableListModelTest.RecordingListener listener = new RefreshableListModelTest.RecordingListener();
+        model.addListDataListener(listener);
+
+        model.refresh(250, -1, -1);
+        model.refresh(100, -1, -1);
+        model.clear();
+
+        assertEquals(Arrays.asList("added 0-249", "removed 100-249", "removed 0-99"), listener.events);
+        assertEquals(Collections.emptyList(), pagesLoaded);
+    }
+
+    @Test
+    public void testRefreshOnlyReloadsVisibleChunksAndFiresChangedRows() {
+        FlipListModel model = newModel(250);
+        model.refresh(250, -1, -1);
+        for (int i = 0; i < 10; i++) {
+            model.getElementAt(i);
+        }
+        model.getElementAt(150);
+        model.getElementAt(220);
+        assertEquals(Arrays.asList(1, 2, 3), pagesLoaded);
+
+        flips.set(3, flip(3, 2_000));
+        flips.set(4, flip(4, 2_000));
+        flips.set(150, flip(150, 2_000));
+        RefreshableListModelTest.RecordingListener listener = new RefreshableListModelTest.RecordingListener();
+        model.addListDataListener(listener);
+        pagesLoaded.clear();
+        model.refresh(250, 0, 9);
+
+        assertEquals(Collections.singletonList(1), pagesLoaded);
+        assertEquals(Collections.singletonList("changed 3-4"), listener.events);
+        // the chunks out of view were dropped and are read again when scrolled to
+        assertEquals(2_000, model.getElementAt(150).getProfit());
+        assertEquals(Arrays.asList(1, 2), pagesLoaded);
+    }
+
+    @Test
+    public void testLeastRecentlyShownChunksAreDropped() {
+        FlipListModel model = newModel(3_000);
+        model.refresh(3_000, -1, -1);
+        for (int chunk = 0; chunk < 25; chunk++) {
+            model.getElementAt(chunk * 100);
+        }
+        assertEquals(25, pagesLoaded.size());
+
+        pagesLoaded.clear();
+        model.getElementAt(2_499);
+        model.getElementAt(500);
+        assertEquals(Collections.emptyList(), pagesLoaded);
+        model.getElementAt(0);
+        assertEquals(Collections.singletonList(1), pagesLoaded);
+    }
+}
@@ -0,0 +1,56 @@
+package com.beagleflipper.ui;
+
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RefreshCoalescerTest {
+
+    @Test
+    public void testBurstOfRequestsIsCoalesced() throws Exception {
+        AtomicInteger refreshes = new AtomicInteger();
+        AtomicInteger offEdt = new AtomicInteger();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        RefreshCoalescer coalescer = new RefreshCoalescer("test", 50, () -> {
+            if (!SwingUtilities.isEventDispatchThread()) {
+                offEdt.incrementAndGet();
+            }
+            refreshes.incrementAndGet();
+            refreshed.countDown();
+        });
+
+        // the timer fires on the EDT, so it can't run until every request made on the EDT is in
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < 1000; i++) {
+                coalescer.request();
+            }
+        });
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+        assertEquals(0, offEdt.get());
+        assertEquals(1, refreshes.get());
+        assertEquals(1000, coalescer.getRequestCount());
+        assertEquals(1, coalescer.getRunCount());
+        assertEquals(999, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void testRequestDuringRefreshGetsAnotherRun() throws Exception {
+        CountDownLatch twice = new CountDownLatch(2);
+        RefreshCoalescer[] coalescer = new RefreshCoalescer[1];
+        coalescer[0] = new RefreshCoalescer("test", 10, () -> {
+            if (twice.getCount() == 2) {
+                coalescer[0].request();
+            }
+            twice.countDown();
+        });
+        coalescer[0].request();
+        assertTrue(twice.await(5, TimeUnit.SECONDS));
+    }
+}
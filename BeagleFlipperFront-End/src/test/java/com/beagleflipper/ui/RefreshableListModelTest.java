@@ -0,0 +1,72 @@
+package com.beagleflipper.ui;
+
+import org.junit.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class RefreshableListModelTest {
+
+    static class RecordingListener implements ListDataListener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void intervalAdded(ListDataEvent e) {
+            events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+        }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) {
+            events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+        }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) {
+            events.add("changed " + e.getIndex0() + "-" + e.getIndex1());
+        }
+    }
+
+    private static class TestModel extends RefreshableListModel<String> {
+        @Override
+        public int getSize() {
+            return 0;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return null;
+        }
+    }
+
+    @Test
+    public void testResizeFiresAddedOrRemovedTail() {
+        TestModel model = new TestModel();
+        RecordingListener listener = new RecordingListener();
+        model.addListDataListener(listener);
+
+        model.fireResized(3, 10);
+        model.fireResized(10, 4);
+        model.fireResized(4, 4);
+
+        assertEquals(Arrays.asList("added 3-9", "removed 4-9"), listener.events);
+    }
+
+    @Test
+    public void testChangedRowsFireOneEventPerRun() {
+        TestModel model = new TestModel();
+        RecordingListener listener = new RecordingListener();
+        model.addListDataListener(listener);
+
+        model.fireChangedRows(100,
+                Arrays.asList("a", "b", "c", "d", "e"),
+                Arrays.asList("a", "x", "y", "d", "z", "f"));
+        model.fireChangedRows(0, Arrays.asList("a", "b"), Arrays.asList("a", "b"));
+
+        assertEquals(Arrays.asList("changed 101-102", "changed 104-105"), listener.events);
+    }
+}
@@ -0,0 +1,98 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.ui.graph.model.Bounds;
+import com.beagleflipper.ui.graph.model.Data;
+import com.beagleflipper.ui.graph.model.Series;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DataManagerTest {
+
+    private static final int NOW = 1_700_000_000;
+
+    private static int[] times(int start, int step, int n) {
+        int[] times = new int[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = start + i * step;
+        }
+        return times;
+    }
+
+    private static int[] prices(Random random, int n) {
+        int[] prices = new int[n];
+        for (int i = 0; i < n; i++) {
+            prices[i] = 1_000 + random.nextInt(1_000);
+        }
+        return prices;
+    }
+
+    private static Data data(Random random) {
+        Data d = new Data();
+        d.low1hTimes = times(NOW - 2_000 * 3600, 3600, 2_000);
+        d.high1hTimes = d.low1hTimes;
+        d.low1hPrices = prices(random, 2_000);
+        d.high1hPrices = prices(random, 2_000);
+        d.low5mTimes = times(NOW, 300, 500);
+        d.high5mTimes = d.low5mTimes;
+        d.low5mPrices = prices(random, 500);
+        d.high5mPrices = prices(random, 500);
+        d.lowLatestTimes = times(NOW + 500 * 300, 60, 300);
+        d.highLatestTimes = d.lowLatestTimes;
+        d.lowLatestPrices = prices(random, 300);
+        d.highLatestPrices = prices(random, 300);
+        d.predictionTimes = times(NOW + 800 * 300, 3600, 24);
+        d.predictionLowMeans = prices(random, 24);
+        d.predictionHighMeans = prices(random, 24);
+        d.predictionLowIQRLower = Arrays.stream(d.predictionLowMeans).map(p -> p - 300).toArray();
+        d.predictionLowIQRUpper = Arrays.stream(d.predictionLowMeans).map(p -> p + 100).toArray();
+        d.predictionHighIQRLower = Arrays.stream(d.predictionHighMeans).map(p -> p - 100).toArray();
+        d.predictionHighIQRUpper = Arrays.stream(d.predictionHighMeans).map(p -> p + 300).toArray();
+        return d;
+    }
+
+    // scans every point, what the bounds index replaces
+    private static Bounds scanBounds(DataManager dm, int fromTime, int toTime) {
+        Bounds b = new Bounds(Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE);
+        long sum = 0;
+        long n = 0;
+        for (Series s : Arrays.asList(dm.highSeries, dm.lowSeries, dm.predictionLowSeries, dm.predictionHighSeries)) {
+            for (int i = 0; i < s.size; i++) {
+                if (s.times[i] < fromTime || s.times[i] > toTime) {
+                    continue;
+                }
+                b.xMin = Math.min(b.xMin, s.times[i]);
+                b.xMax = Math.max(b.xMax, s.times[i]);
+                b.yMin = Math.min(b.yMin, s.iqrLower == null ? s.prices[i] : Math.min(s.prices[i], s.iqrLower[i]));
+                b.yMax = Math.max(b.yMax, s.iqrUpper == null ? s.prices[i] : Math.max(s.prices[i], s.iqrUpper[i]));
+                sum += s.prices[i];
+                n++;
+            }
+        }
+        int padding = Math.max(1, (int) (0.03 * (n == 0 ? 0 : sum / n)));
+        b.yMin = Math.max(0, b.yMin - padding);
+        b.yMax += padding;
+        return b;
+    }
+
+    @Test
+    public void windowBoundsMatchFullScan() {
+        Random random = new Random(5);
+        DataManager dm = new DataManager(data(random));
+        int first = dm.lowSeries.times[0];
+        int last = dm.predictionLowSeries.lastTime();
+
+        assertEquals(scanBounds(dm, Integer.MIN_VALUE, Integer.MAX_VALUE), dm.calculateBounds(Integer.MIN_VALUE));
+        for (int i = 0; i < 500; i++) {
+            int a = first - 10_000 + random.nextInt(last - first + 20_000);
+            int b = first - 10_000 + random.nextInt(last - first + 20_000);
+            int from = Math.min(a, b);
+            int to = Math.max(a, b);
+            assertEquals(scanBounds(dm, from, to), dm.calculateBounds(from, to));
+            assertEquals(scanBounds(dm, from + 1, Integer.MAX_VALUE), dm.calculateBounds(from));
+        }
+    }
+}
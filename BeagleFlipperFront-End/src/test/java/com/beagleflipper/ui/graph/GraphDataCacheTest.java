@@ -0,0 +1,48 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.ui.graph.model.Data;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GraphDataCacheTest {
+
+    private static Data latest(int itemId, boolean delta, int[] times, int[] prices) {
+        Data d = new Data();
+        d.itemId = itemId;
+        d.delta = delta;
+        d.lowLatestTimes = times;
+        d.lowLatestPrices = prices;
+        return d;
+    }
+
+    @Test
+    public void deltaIsAppendedAndOldestPointsTrimmedToOriginalSpan() {
+        GraphDataCache cache = new GraphDataCache();
+        cache.merge(latest(2, false, new int[]{100, 200, 300}, new int[]{1, 2, 3}));
+
+        Data merged = cache.merge(latest(2, true, new int[]{300, 400}, new int[]{3, 4}));
+
+        assertArrayEquals(new int[]{200, 300, 400}, merged.lowLatestTimes);
+        assertArrayEquals(new int[]{2, 3, 4}, merged.lowLatestPrices);
+        assertEquals(400, cache.watermarksJson().get(0).getAsJsonObject().get("low_latest_time").getAsInt());
+    }
+
+    @Test
+    public void fullDataReplacesCachedEntry() {
+        GraphDataCache cache = new GraphDataCache();
+        cache.merge(latest(2, false, new int[]{100, 200}, new int[]{1, 2}));
+        Data full = latest(2, false, new int[]{500}, new int[]{5});
+
+        assertSame(full, cache.merge(full));
+        assertEquals(500, cache.watermarksJson().get(0).getAsJsonObject().get("low_latest_time").getAsInt());
+    }
+
+    @Test
+    public void deltaWithoutCachedBaseIsReportedAsError() {
+        GraphDataCache cache = new GraphDataCache();
+        Data merged = cache.merge(latest(2, true, new int[]{300}, new int[]{3}));
+        assertNotNull(merged.loadingErrorMessage);
+        assertEquals(0, cache.watermarksJson().size());
+    }
+}
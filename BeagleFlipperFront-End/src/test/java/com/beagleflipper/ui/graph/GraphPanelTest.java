@@ -0,0 +1,72 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.manger.PriceGraphConfigManager;
+import com.beagleflipper.ui.graph.model.Config;
+import com.beagleflipper.ui.graph.model.Data;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+public class GraphPanelTest {
+
+    private static Data data() {
+        int now = 1_700_000_000;
+        int n = 500;
+        Data d = new Data();
+        d.name = "Death rune";
+        d.low1hTimes = new int[n];
+        d.low1hPrices = new int[n];
+        d.high1hTimes = new int[n];
+        d.high1hPrices = new int[n];
+        for (int i = 0; i < n; i++) {
+            d.low1hTimes[i] = now - (n - i) * 3600;
+            d.high1hTimes[i] = now - (n - i) * 3600;
+            d.low1hPrices[i] = 200 + i % 7;
+            d.high1hPrices[i] = 210 + i % 5;
+        }
+        d.low5mTimes = d.low5mPrices = d.high5mTimes = d.high5mPrices = new int[0];
+        d.lowLatestTimes = d.lowLatestPrices = d.highLatestTimes = d.highLatestPrices = new int[0];
+        d.predictionTimes = d.predictionLowMeans = d.predictionLowIQRLower = d.predictionLowIQRUpper = new int[0];
+        d.predictionHighMeans = d.predictionHighIQRLower = d.predictionHighIQRUpper = new int[0];
+        return d;
+    }
+
+    private static void paint(GraphPanel panel) {
+        BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        panel.paintComponent(g);
+        g.dispose();
+    }
+
+    @Test
+    public void staticLayerIsOnlyRenderedWhenTheViewChanges() {
+        PriceGraphConfigManager configManager = Mockito.mock(PriceGraphConfigManager.class);
+        Config config = new Config();
+        Mockito.when(configManager.getConfig()).thenReturn(config);
+        GraphPanel panel = new GraphPanel(new DataManager(data()), configManager);
+        panel.setSize(600, 400);
+
+        paint(panel);
+        paint(panel);
+        paint(panel);
+        assertEquals(3, panel.getPaintCount());
+        assertEquals(1, panel.getStaticLayerRenderCount());
+
+        panel.zoomHandler.applyZoomIn(panel.pa);
+        paint(panel);
+        assertEquals(2, panel.getStaticLayerRenderCount());
+
+        config.connectPoints = !config.connectPoints;
+        paint(panel);
+        assertEquals(3, panel.getStaticLayerRenderCount());
+
+        panel.setSize(700, 400);
+        paint(panel);
+        paint(panel);
+        assertEquals(4, panel.getStaticLayerRenderCount());
+    }
+}
@@ -0,0 +1,82 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.ui.graph.model.Bounds;
+import com.beagleflipper.ui.graph.model.Datapoint;
+import com.beagleflipper.ui.graph.model.Series;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HoverGridTest {
+
+    private static final int START = 1_700_000_000;
+
+    private static Series series(Random random, int n, Datapoint.Type type) {
+        int[] times = new int[n];
+        int[] prices = new int[n];
+        byte[] types = new byte[n];
+        int time = START;
+        for (int i = 0; i < n; i++) {
+            time += random.nextInt(300);
+            times[i] = time;
+            prices[i] = 1_000 + random.nextInt(200);
+            types[i] = (byte) type.ordinal();
+        }
+        return new Series(true, n, times, prices, types, null, null);
+    }
+
+    // the full scan the grid replaces
+    private static Datapoint bruteForce(List<Series> series, Point mouse, int radius, PlotArea pa) {
+        Datapoint closest = null;
+        double minDistance = radius;
+        for (Series points : series) {
+            for (int i = 0; i < points.size; i++) {
+                Datapoint d = points.get(i);
+                double distance = mouse.distance(d.getHoverPosition(pa));
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    closest = d;
+                }
+            }
+        }
+        return closest;
+    }
+
+    private static String key(Datapoint d) {
+        return d == null ? null : d.time + "/" + d.price + "/" + d.type;
+    }
+
+    @Test
+    public void closestMatchesFullScan() {
+        Random random = new Random(11);
+        List<Series> series = Arrays.asList(
+                series(random, 5_000, Datapoint.Type.INSTA_SELL_BUY),
+                series(random, 2_000, Datapoint.Type.FIVE_MIN_AVERAGE),
+                series(random, 500, Datapoint.Type.HOUR_AVERAGE));
+        PlotArea pa = new PlotArea();
+        pa.w = 500;
+        pa.h = 300;
+        pa.bounds = new Bounds(START + 100_000, START + 200_000, 1_020, 1_180);
+
+        HoverGrid grid = new HoverGrid(series, pa, 8);
+        assertTrue(grid.matches(pa, 8));
+        int found = 0;
+        for (int i = 0; i < 20_000; i++) {
+            Point mouse = new Point(random.nextInt(pa.w + 1), random.nextInt(pa.h + 1));
+            Datapoint expected = bruteForce(series, mouse, 8, pa);
+            assertEquals(key(expected), key(grid.closest(mouse)));
+            if (expected != null) {
+                found++;
+            }
+        }
+        assertTrue(found > 0);
+
+        pa.bounds.xMin += 10;
+        assertFalse(grid.matches(pa, 8));
+    }
+}
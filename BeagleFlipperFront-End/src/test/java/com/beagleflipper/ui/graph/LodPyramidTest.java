@@ -0,0 +1,76 @@
+package com.beagleflipper.ui.graph;
+
+import com.beagleflipper.ui.graph.model.Bounds;
+import com.beagleflipper.ui.graph.model.Datapoint;
+import com.beagleflipper.ui.graph.model.Series;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LodPyramidTest {
+
+    private static Series randomSeries(int n) {
+        Random random = new Random(7);
+        int[] times = new int[n];
+        int[] prices = new int[n];
+        int time = 1_700_000_000;
+        for (int i = 0; i < n; i++) {
+            time += 1 + random.nextInt(120);
+            times[i] = time;
+            prices[i] = 1_000 + random.nextInt(500);
+        }
+        return Series.stitch(true, new int[0], new int[0], new int[0], new int[0], times, prices);
+    }
+
+    private static Map<Long, List<Integer>> bucketRanges(Series points, long bucket) {
+        Map<Long, List<Integer>> ranges = new HashMap<>();
+        for (int i = 0; i < points.size; i++) {
+            int price = points.prices[i];
+            List<Integer> r = ranges.computeIfAbsent(Math.floorDiv(points.times[i], bucket), b -> Arrays.asList(price, price));
+            r.set(0, Math.min(r.get(0), price));
+            r.set(1, Math.max(r.get(1), price));
+        }
+        return ranges;
+    }
+
+    @Test
+    public void everyLevelKeepsTheExtremesOfEachBucket() {
+        Series series = randomSeries(20_000);
+        LodPyramid pyramid = new LodPyramid(series);
+
+        assertSame(series, pyramid.level(0));
+        for (int k = 1; k < pyramid.levelCount(); k++) {
+            long bucket = LodPyramid.bucketSeconds(k);
+            Series level = pyramid.level(k);
+            for (int i = 1; i < level.size; i++) {
+                assertTrue(level.times[i - 1] <= level.times[i]);
+                assertEquals(Datapoint.Type.INSTA_SELL_BUY, level.type(i));
+            }
+            assertEquals(bucketRanges(series, bucket), bucketRanges(level, bucket));
+        }
+    }
+
+    @Test
+    public void levelForPlotAreaIsBoundedByWidth() {
+        Series series = randomSeries(50_000);
+        LodPyramid pyramid = new LodPyramid(series);
+        PlotArea pa = new PlotArea();
+        pa.w = 400;
+        pa.bounds = new Bounds(series.times[0], series.lastTime(), 0, 2_000);
+
+        Series level = pyramid.levelFor(pa);
+        // at most two points for each of about two buckets per pixel column
+        assertTrue(level.size <= 4 * pa.w + 2);
+        assertTrue(level.size < series.size);
+
+        // zoomed in far enough that a pixel is under a minute the raw points are used
+        pa.bounds = new Bounds(series.times[0], series.times[0] + 60 * 60, 0, 2_000);
+        assertSame(pyramid.level(0), pyramid.levelFor(pa));
+    }
+}
@@ -0,0 +1,89 @@
+package com.beagleflipper.ui.graph.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SeriesTest {
+
+    // the list based stitching Series.stitch replaced
+    private static List<Datapoint> listStitch(int[] hT, int[] hP, int[] fT, int[] fP, int[] lT, int[] lP) {
+        List<Datapoint> points = new ArrayList<>();
+        for (int i = 0; i < lT.length; i++) {
+            points.add(new Datapoint(lT[i], lP[i], true, Datapoint.Type.INSTA_SELL_BUY));
+        }
+        int fiveMinCut = points.isEmpty() ? Integer.MAX_VALUE
+                : Constants.FIVE_MIN_SECONDS * (points.get(0).time / Constants.FIVE_MIN_SECONDS) + Constants.FIVE_MIN_SECONDS;
+        points.removeIf(d -> d.time < fiveMinCut);
+        for (int i = fT.length - 1; i >= 0; i--) {
+            if (fT[i] < fiveMinCut) {
+                points.add(0, new Datapoint(fT[i], fP[i], true, Datapoint.Type.FIVE_MIN_AVERAGE));
+            }
+        }
+        int hourCut = points.isEmpty() ? Integer.MAX_VALUE
+                : Constants.HOUR_SECONDS * (points.get(0).time / Constants.HOUR_SECONDS) + Constants.HOUR_SECONDS;
+        points.removeIf(d -> d.time < hourCut);
+        for (int i = hT.length - 1; i >= 0; i--) {
+            if (hT[i] < hourCut) {
+                points.add(0, new Datapoint(hT[i], hP[i], true, Datapoint.Type.HOUR_AVERAGE));
+            }
+        }
+        return points;
+    }
+
+    private static int[] times(Random random, int start, int step, int n) {
+        int[] times = new int[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = start + i * step + random.nextInt(step);
+        }
+        return times;
+    }
+
+    private static int[] prices(Random random, int n) {
+        int[] prices = new int[n];
+        for (int i = 0; i < n; i++) {
+            prices[i] = random.nextInt(10_000);
+        }
+        return prices;
+    }
+
+    @Test
+    public void stitchMatchesListStitching() {
+        Random random = new Random(3);
+        int now = 1_700_000_000;
+        for (int round = 0; round < 200; round++) {
+            int nh = random.nextInt(50);
+            int nf = random.nextInt(50);
+            int nl = random.nextInt(50);
+            int[] hT = times(random, now - 400 * Constants.HOUR_SECONDS + random.nextInt(100 * Constants.HOUR_SECONDS), Constants.HOUR_SECONDS, nh);
+            int[] fT = times(random, now - 300 * Constants.FIVE_MIN_SECONDS, Constants.FIVE_MIN_SECONDS, nf);
+            int[] lT = times(random, now - random.nextInt(200 * Constants.FIVE_MIN_SECONDS), 60, nl);
+            int[] hP = prices(random, nh);
+            int[] fP = prices(random, nf);
+            int[] lP = prices(random, nl);
+
+            List<Datapoint> expected = listStitch(hT, hP, fT, fP, lT, lP);
+            Series series = Series.stitch(true, hT, hP, fT, fP, lT, lP);
+            assertEquals(expected.size(), series.size);
+            for (int i = 0; i < series.size; i++) {
+                assertEquals(expected.get(i).time, series.times[i]);
+                assertEquals(expected.get(i).price, series.prices[i]);
+                assertEquals(expected.get(i).type, series.type(i));
+            }
+        }
+    }
+
+    @Test
+    public void windowSearchFindsEdges() {
+        Series series = new Series(true, 4, new int[]{10, 20, 20, 30}, new int[]{1, 1, 1, 1}, new byte[4], null, null);
+        assertEquals(0, series.firstAtOrAfter(5));
+        assertEquals(1, series.firstAtOrAfter(20));
+        assertEquals(3, series.firstAfter(20));
+        assertEquals(4, series.firstAfter(30));
+        assertEquals(4, series.firstAfter(Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,57 @@
+package com.beagleflipper.util;
+
+import okio.Buffer;
+import okio.Options;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MsgPackEncoderTest {
+
+    @Test
+    public void integersRoundTripThroughEveryWidth() throws IOException {
+        long[] values = {0, 1, 127, 128, 255, 256, 65535, 65536, 4294967295L, 4294967296L,
+                -1, -32, -33, -128, -129, -32768, -32769, Integer.MIN_VALUE, Integer.MIN_VALUE - 1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        Buffer b = new Buffer();
+        for (long v : values) {
+            MsgPackEncoder.writeLong(b, v);
+        }
+        for (long v : values) {
+            assertEquals(v, MsgPackUtil.readLong(b));
+        }
+        assertEquals(0, b.size());
+    }
+
+    @Test
+    public void mapWriterRoundTrips() throws IOException {
+        Buffer b = new Buffer();
+        MsgPackEncoder.MapWriter map = new MsgPackEncoder.MapWriter()
+                .put("display_name", "Zezima")
+                .put("account_hash", (Long) null)
+                .put("is_member", true)
+                .put("preferences", new MsgPackEncoder.MapWriter().put("f2pOnlyMode", false));
+        MsgPackEncoder.writeIntList(map.key("blocked_items"), List.of(1, 20000, 300000));
+        map.writeTo(b);
+
+        Options keys = MsgPackUtil.keyTable("display_name", "account_hash", "is_member", "preferences", "blocked_items");
+        assertEquals(5, (int) MsgPackUtil.decodeMapSize(b));
+        assertEquals(0, MsgPackUtil.readKeyId(b, keys));
+        assertEquals("Zezima", MsgPackUtil.readStringOrNull(b));
+        assertEquals(1, MsgPackUtil.readKeyId(b, keys));
+        assertNull(MsgPackUtil.decodePrimitive(b));
+        assertEquals(2, MsgPackUtil.readKeyId(b, keys));
+        assertEquals(true, MsgPackUtil.readBoolean(b));
+        assertEquals(3, MsgPackUtil.readKeyId(b, keys));
+        MsgPackUtil.skipValue(b);
+        assertEquals(4, MsgPackUtil.readKeyId(b, keys));
+        assertEquals(0x93, b.readByte() & 0xFF);
+        assertEquals(1, MsgPackUtil.readLong(b));
+        assertEquals(20000, MsgPackUtil.readLong(b));
+        assertEquals(300000, MsgPackUtil.readLong(b));
+        assertEquals(0, b.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.beagleflipper.util;
+
+import okio.Buffer;
+import okio.Options;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MsgPackUtilTest {
+
+    private static Buffer int32Ext(int[] values) {
+        Buffer b = new Buffer();
+        b.writeByte(0xC9);
+        b.writeInt(values.length * 4);
+        b.writeByte(41);
+        for (int v : values) {
+            b.writeIntLe(v);
+        }
+        return b;
+    }
+
+    private static int[] randomValues(int n, long seed) {
+        Random r = new Random(seed);
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = r.nextInt();
+        }
+        return values;
+    }
+
+    @Test
+    public void decodesSmallArray() throws IOException {
+        int[] values = {0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 1_700_000_000};
+        assertArrayEquals(values, MsgPackUtil.decodeInt32Array(int32Ext(values)));
+    }
+
+    @Test
+    public void decodesArraySpanningSeveralScratchChunks() throws IOException {
+        // roughly 6 months of 5 minute points
+        int[] values = randomValues(52_000, 7);
+        assertArrayEquals(values, MsgPackUtil.decodeInt32Array(int32Ext(values)));
+    }
+
+    @Test
+    public void decodesConsecutiveArraysFromOneSource() throws IOException {
+        int[] first = randomValues(5_000, 1);
+        int[] second = randomValues(3, 2);
+        Buffer b = int32Ext(first);
+        b.writeAll(int32Ext(second));
+        assertArrayEquals(first, MsgPackUtil.decodeInt32Array(b));
+        assertArrayEquals(second, MsgPackUtil.decodeInt32Array(b));
+    }
+
+    @Test
+    public void nilDecodesToNull() throws IOException {
+        Buffer b = new Buffer();
+        b.writeByte(0xC0);
+        assertNull(MsgPackUtil.decodeInt32Array(b));
+    }
+
+    @Test
+    public void matchesKnownKeysAndSkipsUnknownOnes() throws IOException {
+        Options keys = MsgPackUtil.keyTable("i", "id", "n");
+        Buffer b = new Buffer();
+        // {"id": 5, "x": {"y": [1, "z"]}, "i": -3, "n": "Coal", "nx": 1.5}
+        b.writeByte(0x85);
+        b.writeByte(0xA2).writeUtf8("id").writeByte(0x05);
+        b.writeByte(0xA1).writeUtf8("x");
+        b.writeByte(0x81).writeByte(0xA1).writeUtf8("y").writeByte(0x92).writeByte(0x01).writeByte(0xA1).writeUtf8("z");
+        b.writeByte(0xA1).writeUtf8("i").writeByte(0xD0).writeByte(-3);
+        b.writeByte(0xA1).writeUtf8("n").writeByte(0xA4).writeUtf8("Coal");
+        b.writeByte(0xA2).writeUtf8("nx").writeByte(0xCB).writeLong(Double.doubleToLongBits(1.5));
+
+        assertEquals(5, (int) MsgPackUtil.decodeMapSize(b));
+        assertEquals(1, MsgPackUtil.readKeyId(b, keys));
+        assertEquals(5, MsgPackUtil.readInt(b));
+        assertEquals(-1, MsgPackUtil.readKeyId(b, keys));
+        MsgPackUtil.skipValue(b);
+        assertEquals(0, MsgPackUtil.readKeyId(b, keys));
+        assertEquals(-3, MsgPackUtil.readLong(b));
+        assertEquals(2, MsgPackUtil.readKeyId(b, keys));
+        assertEquals("Coal", MsgPackUtil.readStringOrNull(b));
+        assertEquals(-1, MsgPackUtil.readKeyId(b, keys));
+        assertEquals(1.5, MsgPackUtil.readDouble(b), 0);
+        assertEquals(0, b.size());
+    }
+
+    @Test
+    public void readDoubleAcceptsIntegerEncodings() throws IOException {
+        Buffer b = new Buffer();
+        b.writeByte(0xCD).writeShort(40000);
+        assertEquals(40000.0, MsgPackUtil.readDouble(b), 0);
+    }
+}